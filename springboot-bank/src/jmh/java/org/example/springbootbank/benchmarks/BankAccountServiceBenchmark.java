@@ -0,0 +1,82 @@
+package org.example.springbootbank.benchmarks;
+
+import org.example.springbootbank.SpringbootBankApplication;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.services.BankAccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * debit, credit and transfer through the Spring service against an embedded H2 database,
+ * with and without ledger group commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BankAccountServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+    private BankAccountService bankAccountService;
+    private String source;
+    private String destination;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(SpringbootBankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.root=warn",
+                        "bank.ledger.group-commit=" + groupCommit)
+                .run();
+        bankAccountService = context.getBean(BankAccountService.class);
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "bench", "bench@test"));
+        source = bankAccountService.saveCurrentBankAccount(1e12, 0, customer.getId()).getId();
+        destination = bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void debit() throws Exception {
+        bankAccountService.debit(source, 1, "bench");
+    }
+
+    @Benchmark
+    public void credit() throws Exception {
+        bankAccountService.credit(destination, 1, "bench");
+    }
+
+    @Benchmark
+    public void transfer() throws Exception {
+        bankAccountService.transfer(source, destination, 1);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.springbootbank.benchmarks;
+
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.AccountStatus;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.CurrentAccount;
+import org.example.springbootbank.entities.Customer;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.entities.SavingAccount;
+import org.example.springbootbank.mappers.BankAccountMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO conversions: the hand-written mapper against the BeanUtils baseline.
+ * Each invocation converts one million operations, so the reported score is per conversion.
+ * Run with the gc profiler (the profile default) to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private static final int OPERATIONS = 1_000_000;
+    private static final int ACCOUNTS = 1_000;
+
+    private final BankAccountMapperImpl mapper = new BankAccountMapperImpl();
+    private final ReflectiveBankAccountMapper reflectiveMapper = new ReflectiveBankAccountMapper();
+    private AccountOperation[] operations;
+    private BankAccount[] accounts;
+
+    @Setup
+    public void setUp() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setName("khadija");
+        customer.setEmail("khadija@gmail.com");
+        accounts = new BankAccount[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BankAccount bankAccount = i % 2 == 0 ? new CurrentAccount(9000) : new SavingAccount(5.5, null);
+            bankAccount.setId(UUID.randomUUID().toString());
+            bankAccount.setBalance(i * 1000L);
+            bankAccount.setCreatedAt(new Date());
+            bankAccount.setStatus(AccountStatus.ACTIVATED);
+            bankAccount.setCurrency("MAD");
+            bankAccount.setCustomer(customer);
+            accounts[i] = bankAccount;
+        }
+        operations = new AccountOperation[OPERATIONS];
+        Date date = new Date();
+        for (int i = 0; i < OPERATIONS; i++) {
+            operations[i] = new AccountOperation((long) i, date, i % 1000, i % 2 == 0 ? OperationType.CREDIT : OperationType.DEBIT,
+                    accounts[i % ACCOUNTS], "operation " + i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void accountOperationGenerated(Blackhole blackhole) {
+        for (AccountOperation operation : operations) {
+            blackhole.consume(mapper.fromAccountOperation(operation));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void accountOperationReflective(Blackhole blackhole) {
+        for (AccountOperation operation : operations) {
+            blackhole.consume(reflectiveMapper.fromAccountOperation(operation));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCOUNTS)
+    public void bankAccountGenerated(Blackhole blackhole) {
+        for (BankAccount account : accounts) {
+            blackhole.consume(mapper.fromBankAccount(account));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ACCOUNTS)
+    public void bankAccountReflective(Blackhole blackhole) {
+        for (BankAccount account : accounts) {
+            blackhole.consume(reflectiveMapper.fromBankAccount(account));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.springbootbank.benchmarks;
+
+import org.example.springbootbank.dtos.AccountOperationDTO;
+import org.example.springbootbank.dtos.BankAccountDTO;
+import org.example.springbootbank.dtos.CurrentBankAccountDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.SavingBankAccountDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.CurrentAccount;
+import org.example.springbootbank.entities.Customer;
+import org.example.springbootbank.entities.SavingAccount;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * The BeanUtils based mapper the application used before, kept as the benchmark baseline.
+ */
+public class ReflectiveBankAccountMapper {
+
+    public CustomerDTO fromCustomer(Customer customer) {
+        CustomerDTO customerDTO = new CustomerDTO();
+        BeanUtils.copyProperties(customer, customerDTO);
+        return customerDTO;
+    }
+
+    public BankAccountDTO fromBankAccount(BankAccount bankAccount) {
+        if (bankAccount instanceof SavingAccount savingAccount) {
+            SavingBankAccountDTO savingBankAccountDTO = new SavingBankAccountDTO();
+            BeanUtils.copyProperties(savingAccount, savingBankAccountDTO);
+            savingBankAccountDTO.setCustomerDTO(fromCustomer(savingAccount.getCustomer()));
+            savingBankAccountDTO.setType(savingAccount.getClass().getSimpleName());
+            return savingBankAccountDTO;
+        }
+        CurrentAccount currentAccount = (CurrentAccount) bankAccount;
+        CurrentBankAccountDTO currentBankAccountDTO = new CurrentBankAccountDTO();
+        BeanUtils.copyProperties(currentAccount, currentBankAccountDTO);
+        currentBankAccountDTO.setCustomerDTO(fromCustomer(currentAccount.getCustomer()));
+        currentBankAccountDTO.setType(currentAccount.getClass().getSimpleName());
+        return currentBankAccountDTO;
+    }
+
+    public AccountOperationDTO fromAccountOperation(AccountOperation accountOperation) {
+        AccountOperationDTO accountOperationDTO = new AccountOperationDTO();
+        BeanUtils.copyProperties(accountOperation, accountOperationDTO);
+        return accountOperationDTO;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.springbootbank.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springbootbank.security.SecurityConfig;
+import org.example.springbootbank.security.RefreshTokenStore;
+import org.example.springbootbank.security.SecurityController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authentication hot paths: JWT encoding and decoding with the beans of SecurityConfig (decoding
+ * with and without the verified-token cache), and a full /auth/login (BCrypt check plus token issue) through SecurityController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityBenchmark {
+    private static final String SECRET = "9faa372517ac1d389758d3750fc07acf00f542277f26fec1ce4593e93f64e338";
+
+    private JwtEncoder jwtEncoder;
+    private JwtDecoder jwtDecoder;
+    private JwtDecoder cachingJwtDecoder;
+    private SecurityController securityController;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        SecurityConfig securityConfig = new SecurityConfig();
+        ReflectionTestUtils.setField(securityConfig, "secretKey", SECRET);
+        jwtEncoder = securityConfig.jwtEncoder();
+        jwtDecoder = securityConfig.jwtDecoder(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(securityConfig, "jwtCacheMaximumSize", 10_000L);
+        cachingJwtDecoder = securityConfig.jwtDecoder(new SimpleMeterRegistry());
+
+        securityController = new SecurityController();
+        ReflectionTestUtils.setField(securityController, "jwtEncoder", jwtEncoder);
+        ReflectionTestUtils.setField(securityController, "refreshTokenStore", new RefreshTokenStore(Duration.ofHours(8), 100_000));
+        ReflectionTestUtils.setField(securityController, "authenticationManager",
+                securityConfig.authenticationManager(securityConfig.inMemoryUserDetailsManager()));
+        token = encode();
+    }
+
+    @Benchmark
+    public String jwtEncode() {
+        return encode();
+    }
+
+    @Benchmark
+    public Jwt jwtDecode() {
+        return jwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt jwtDecodeCached() {
+        return cachingJwtDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Map<String, String> login() {
+        return securityController.login("user1", "12345");
+    }
+
+    private String encode() {
+        Instant instant = Instant.now();
+        JwtClaimsSet jwtClaimsSet = JwtClaimsSet.builder()
+                .issuedAt(instant)
+                .expiresAt(instant.plus(10, ChronoUnit.MINUTES))
+                .subject("user1")
+                .claim("scope", "USER")
+                .build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS512).build(), jwtClaimsSet)).getTokenValue();
+    }
+}
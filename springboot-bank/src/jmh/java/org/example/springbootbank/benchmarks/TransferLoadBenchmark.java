@@ -0,0 +1,112 @@
+package org.example.springbootbank.benchmarks;
+
+import org.example.springbootbank.SpringbootBankApplication;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.services.BankAccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test of POST /accounts/transfer over HTTP, with Tomcat on platform threads and on virtual threads.
+ * Many more clients than Tomcat worker threads are used, so the platform mode queues on the worker
+ * pool while the virtual mode only queues on the Hikari pool. Throughput and SampleTime (p99) scores
+ * of both modes end up side by side in the JSON result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 2, time = 10)
+@Threads(128)
+@Fork(1)
+public class TransferLoadBenchmark {
+    private static final int ACCOUNTS = 200;
+    private static final Pattern ACCESS_TOKEN = Pattern.compile("\"access-token\"\\s*:\\s*\"([^\"]+)\"");
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI transferUri;
+    private String authorization;
+    private String[] accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(SpringbootBankApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=32",
+                        "spring.datasource.hikari.maximum-pool-size=16",
+                        "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "logging.level.root=warn")
+                .run();
+        BankAccountService bankAccountService = context.getBean(BankAccountService.class);
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "load", "load@test"));
+        accounts = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts[i] = bankAccountService.saveCurrentBankAccount(1e9, 0, customer.getId()).getId();
+        }
+
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        transferUri = URI.create(baseUrl + "/accounts/transfer");
+        HttpResponse<String> login = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login?username=user1&password=12345"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ACCESS_TOKEN.matcher(login.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed: " + login.body());
+        }
+        authorization = "Bearer " + matcher.group(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int transfer() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(ACCOUNTS);
+        int destination = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        String body = "{\"accountSource\":\"" + accounts[source] + "\",\"accountDestination\":\"" + accounts[destination] + "\",\"amount\":1}";
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(transferUri)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Transfer failed with HTTP " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
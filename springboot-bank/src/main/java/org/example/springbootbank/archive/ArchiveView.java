@@ -0,0 +1,234 @@
+package org.example.springbootbank.archive;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The archived months at one point in time: consecutive, each complete, and immutable like their segments.
+ * Everything dated before {@link #horizon()} is served from here and nothing after it, so callers read
+ * the table from the horizon on and never see an operation twice, whether or not its row was deleted yet.
+ */
+public final class ArchiveView {
+    static final ArchiveView EMPTY = new ArchiveView(List.of());
+
+    private final List<ArchivedMonth> months;
+
+    ArchiveView(List<ArchivedMonth> months) {
+        this.months = months;
+    }
+
+    public boolean isEmpty() {
+        return months.isEmpty();
+    }
+
+    /** End of the last archived month, the epoch when nothing is archived. */
+    public Date horizon() {
+        return months.isEmpty() ? new Date(0) : months.get(months.size() - 1).end();
+    }
+
+    /** The archived months, oldest first. */
+    public List<ArchivedMonth> months() {
+        return months;
+    }
+
+    /** The later of {@code date} and the horizon, where reads of the table start. */
+    public Date clip(Date date) {
+        Date horizon = horizon();
+        return date.before(horizon) ? horizon : date;
+    }
+
+    public long count(String accountId) {
+        long count = 0;
+        for (ArchivedMonth month : months) {
+            Segment.Entry entry = month.find(accountId);
+            if (entry != null) {
+                count += entry.count();
+            }
+        }
+        return count;
+    }
+
+    /** Credits minus debits of all the account's archived operations, from the index alone. */
+    public long net(String accountId) {
+        long net = 0;
+        for (ArchivedMonth month : months) {
+            Segment.Entry entry = month.find(accountId);
+            if (entry != null) {
+                net = Math.addExact(net, entry.net());
+            }
+        }
+        return net;
+    }
+
+    /** Credits minus debits of the account's archived operations dated in {@code [from, to)}. */
+    public long net(String accountId, Date from, Date to) {
+        long net = 0;
+        for (ArchivedMonth month : months) {
+            if (!month.overlaps(from, to)) {
+                continue;
+            }
+            Segment.Entry entry = month.find(accountId);
+            if (entry == null) {
+                continue;
+            }
+            if (!month.start().before(from) && !month.end().after(to)) {
+                net = Math.addExact(net, entry.net());
+                continue;
+            }
+            for (ArchivedOperation operation : month.read(entry)) {
+                if (!operation.date().before(from) && operation.date().before(to)) {
+                    net = Math.addExact(net, operation.signedAmount());
+                }
+            }
+        }
+        return net;
+    }
+
+    /** The account's archived operations in (date, id) order. */
+    public List<ArchivedOperation> operations(String accountId) {
+        return operations(accountId, new Date(0), horizon());
+    }
+
+    /** The account's archived operations dated in {@code [from, to)}, in (date, id) order. */
+    public List<ArchivedOperation> operations(String accountId, Date from, Date to) {
+        List<ArchivedOperation> operations = new ArrayList<>();
+        for (ArchivedMonth month : months) {
+            if (!month.overlaps(from, to)) {
+                continue;
+            }
+            Segment.Entry entry = month.find(accountId);
+            if (entry == null) {
+                continue;
+            }
+            for (ArchivedOperation operation : month.read(entry)) {
+                if (!operation.date().before(from) && operation.date().before(to)) {
+                    operations.add(operation);
+                }
+            }
+        }
+        return operations;
+    }
+
+    /** Newest first, skipping the {@code offset} newest; months entirely skipped are not read. */
+    public List<ArchivedOperation> newestFirst(String accountId, long offset, int limit) {
+        List<ArchivedOperation> operations = new ArrayList<>(Math.min(limit, 1024));
+        long skip = offset;
+        for (int i = months.size() - 1; i >= 0 && operations.size() < limit; i--) {
+            ArchivedMonth month = months.get(i);
+            Segment.Entry entry = month.find(accountId);
+            if (entry == null) {
+                continue;
+            }
+            if (skip >= entry.count()) {
+                skip -= entry.count();
+                continue;
+            }
+            List<ArchivedOperation> monthOperations = month.read(entry);
+            for (int j = monthOperations.size() - 1 - (int) skip; j >= 0 && operations.size() < limit; j--) {
+                operations.add(monthOperations.get(j));
+            }
+            skip = 0;
+        }
+        return operations;
+    }
+
+    /** Newest first, those coming before {@code (date, id)} in the order of the history. */
+    public List<ArchivedOperation> before(String accountId, Date date, long id, int limit) {
+        List<ArchivedOperation> operations = new ArrayList<>(Math.min(limit, 1024));
+        for (int i = months.size() - 1; i >= 0 && operations.size() < limit; i--) {
+            ArchivedMonth month = months.get(i);
+            if (month.start().after(date)) {
+                continue;
+            }
+            Segment.Entry entry = month.find(accountId);
+            if (entry == null) {
+                continue;
+            }
+            List<ArchivedOperation> monthOperations = month.read(entry);
+            for (int j = monthOperations.size() - 1; j >= 0 && operations.size() < limit; j--) {
+                if (monthOperations.get(j).isBefore(date, id)) {
+                    operations.add(monthOperations.get(j));
+                }
+            }
+        }
+        return operations;
+    }
+
+    /** The currency of the account's latest archived operations, null when it has none. */
+    public String currency(String accountId) {
+        for (int i = months.size() - 1; i >= 0; i--) {
+            Segment.Entry entry = months.get(i).find(accountId);
+            if (entry != null) {
+                return entry.currency();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One archived month and its segment parts, in account id order.
+     */
+    public static final class ArchivedMonth {
+        private final YearMonth month;
+        private final List<Segment> parts;
+
+        ArchivedMonth(YearMonth month, List<Segment> parts) {
+            this.month = month;
+            this.parts = Collections.unmodifiableList(parts);
+        }
+
+        public YearMonth month() {
+            return month;
+        }
+
+        /** Start of the month, included. */
+        public Date start() {
+            return parts.get(0).start();
+        }
+
+        /** End of the month, excluded. */
+        public Date end() {
+            return parts.get(0).end();
+        }
+
+        public long operations() {
+            return parts.stream().mapToLong(Segment::operations).sum();
+        }
+
+        /** Highest id archived, so a row of the month above it is one the archive does not hold. */
+        public long maxOperationId() {
+            return parts.stream().mapToLong(Segment::maxOperationId).max().orElse(0);
+        }
+
+        List<Segment> parts() {
+            return parts;
+        }
+
+        boolean overlaps(Date from, Date to) {
+            return start().before(to) && end().after(from);
+        }
+
+        Segment.Entry find(String accountId) {
+            for (Segment part : parts) {
+                Segment.Entry entry = part.find(accountId);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        List<ArchivedOperation> read(Segment.Entry entry) {
+            // parts split the month by account id range, so only one holds the account
+            for (Segment part : parts) {
+                if (parts.size() == 1 || entry.equals(part.find(entry.accountId()))) {
+                    return part.read(entry);
+                }
+            }
+            throw new IllegalStateException("No part of " + month + " holds account " + entry.accountId());
+        }
+    }
+}
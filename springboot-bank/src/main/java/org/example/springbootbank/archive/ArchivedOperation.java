@@ -0,0 +1,23 @@
+package org.example.springbootbank.archive;
+
+import org.example.springbootbank.entities.OperationType;
+
+import java.util.Date;
+
+/**
+ * An account operation moved out of the {@code account_operation} table into a segment file.
+ * @param amount in minor units of the account's currency
+ */
+public record ArchivedOperation(long id, Date date, OperationType type, long amount, String description) {
+
+    /** The amount, negated for a debit. */
+    public long signedAmount() {
+        return type == OperationType.CREDIT ? amount : -amount;
+    }
+
+    /** Whether this operation comes before {@code (date, id)} in the order of the history. */
+    boolean isBefore(Date date, long id) {
+        int byDate = this.date.compareTo(date);
+        return byDate < 0 || (byDate == 0 && this.id < id);
+    }
+}
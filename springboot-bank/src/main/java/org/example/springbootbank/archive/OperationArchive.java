@@ -0,0 +1,184 @@
+package org.example.springbootbank.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The segment files of {@code bank.archive.directory}, one set of parts per month named
+ * {@code operations-yyyy-MM-<part>.seg}. Each node lists the directory at most every
+ * {@code bank.archive.refresh-interval} and maps the new files, so nodes sharing the directory
+ * pick up what another one published; a month only shows once all its parts are there.
+ */
+@Component
+@Slf4j
+public class OperationArchive {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("operations-(\\d{4}-\\d{2})-(\\d+)\\" + Segment.SUFFIX);
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Duration refreshInterval;
+    private volatile ArchiveView view = ArchiveView.EMPTY;
+    private volatile long refreshedAt;
+    /** Identity of the files behind the view, by path: a file replaced under the same name is mapped again. */
+    private Map<Path, String> loadedFiles = Map.of();
+    private Map<String, Segment> opened = Map.of();
+
+    public OperationArchive(@Value("${bank.archive.directory:archive}") String directory,
+                            @Value("${bank.archive.max-segment-size:1GB}") DataSize maxSegmentSize,
+                            @Value("${bank.archive.refresh-interval:PT1S}") Duration refreshInterval) {
+        this.directory = Paths.get(directory);
+        this.maxSegmentBytes = maxSegmentSize.toBytes();
+        this.refreshInterval = refreshInterval;
+    }
+
+    public ArchiveView view() {
+        if (System.currentTimeMillis() - refreshedAt >= refreshInterval.toMillis()) {
+            refresh(false);
+        }
+        return view;
+    }
+
+    public Duration refreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Writes the month's segments from its operations, fed by {@code source} in (account id, date, id)
+     * order, and publishes them. Nothing is visible before all the parts are on disk.
+     */
+    public ArchiveView.ArchivedMonth archive(YearMonth month, Source source) throws IOException {
+        ArchiveView current = refresh(true);
+        if (current.months().stream().anyMatch(archived -> archived.month().equals(month))) {
+            throw new IllegalStateException(month + " is already archived");
+        }
+        Files.createDirectories(directory);
+        ZoneId zone = ZoneId.systemDefault();
+        Date start = Date.from(month.atDay(1).atStartOfDay(zone).toInstant());
+        Date end = Date.from(month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant());
+        try (SegmentWriter writer = new SegmentWriter(directory, "operations-" + month, start, end, maxSegmentBytes)) {
+            try {
+                source.writeTo(writer::add);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            // parts left over by an interrupted run would otherwise mix with the new ones
+            for (Path stale : segmentFiles().getOrDefault(month, new TreeMap<>()).values()) {
+                Files.delete(stale);
+            }
+            writer.publish();
+        }
+        return refresh(true).months().stream()
+                .filter(archived -> archived.month().equals(month))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(month + " was written but does not follow the archived months"));
+    }
+
+    private synchronized ArchiveView refresh(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - refreshedAt < refreshInterval.toMillis()) {
+            return view;
+        }
+        refreshedAt = now;
+        try {
+            Map<YearMonth, TreeMap<Integer, Path>> files = segmentFiles();
+            Map<Path, String> identities = new HashMap<>();
+            for (TreeMap<Integer, Path> parts : files.values()) {
+                for (Path path : parts.values()) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    identities.put(path, attributes.fileKey() + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+                }
+            }
+            if (!identities.equals(loadedFiles)) {
+                view = load(files, identities);
+                loadedFiles = identities;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not refresh the operation archive in {}, keeping the previous view", directory, e);
+        }
+        return view;
+    }
+
+    private ArchiveView load(Map<YearMonth, TreeMap<Integer, Path>> files, Map<Path, String> identities) {
+        Map<String, Segment> mapped = new HashMap<>();
+        List<ArchiveView.ArchivedMonth> months = new ArrayList<>();
+        for (Map.Entry<YearMonth, TreeMap<Integer, Path>> month : new TreeMap<>(files).entrySet()) {
+            if (!months.isEmpty() && !months.get(months.size() - 1).month().plusMonths(1).equals(month.getKey())) {
+                log.warn("The archive has no {}, ignoring the months from {} on", months.get(months.size() - 1).month().plusMonths(1), month.getKey());
+                break;
+            }
+            List<Segment> parts = new ArrayList<>();
+            for (int part = 0; month.getValue().containsKey(part); part++) {
+                Path path = month.getValue().get(part);
+                String identity = path + "@" + identities.get(path);
+                try {
+                    Segment segment = opened.get(identity);
+                    parts.add(segment != null ? segment : Segment.open(path));
+                    mapped.put(identity, parts.get(part));
+                } catch (IllegalStateException | UncheckedIOException e) {
+                    log.warn("Skipping unreadable archive segment {}", path, e);
+                    break;
+                }
+                if (parts.get(part).isLastPart()) {
+                    break;
+                }
+            }
+            if (parts.isEmpty() || !parts.get(parts.size() - 1).isLastPart()) {
+                // still being published, or damaged
+                break;
+            }
+            months.add(new ArchiveView.ArchivedMonth(month.getKey(), parts));
+        }
+        opened = mapped;
+        return new ArchiveView(List.copyOf(months));
+    }
+
+    private Map<YearMonth, TreeMap<Integer, Path>> segmentFiles() throws IOException {
+        Map<YearMonth, TreeMap<Integer, Path>> files = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "operations-*" + Segment.SUFFIX)) {
+            for (Path path : paths) {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.computeIfAbsent(YearMonth.parse(matcher.group(1)), month -> new TreeMap<>())
+                            .put(Integer.parseInt(matcher.group(2)), path);
+                }
+            }
+        }
+        return files;
+    }
+
+    /** Feeds the operations of the month being archived. */
+    @FunctionalInterface
+    public interface Source {
+        void writeTo(Sink sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void add(String accountId, String currency, ArchivedOperation operation) throws IOException;
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.springbootbank.archive;
+
+import org.example.springbootbank.entities.OperationType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A read-only, memory-mapped segment file: the operations of one period, grouped per account.
+ * <pre>
+ * header   int magic, short version
+ * blocks   per account, in account id order: its operations in (date, id) order, deflated
+ * index    per account: id, currency, block offset, compressed and raw length, operation count, net amount
+ * offsets  long position of each index entry, for the binary search
+ * footer   long index offset, long offsets offset, int accounts, long operations, long max operation id,
+ *          long period start, long period end, int part, boolean last part, int magic
+ * </pre>
+ * A period too large for one file is split into parts by account id range; the last one is flagged.
+ * Nothing is ever written to a published segment, so lookups read the mapping without locking.
+ */
+final class Segment {
+    static final int MAGIC = 0x42_4B_53_47;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES;
+    static final int FOOTER_SIZE = 6 * Long.BYTES + 3 * Integer.BYTES + 1;
+    static final String SUFFIX = ".seg";
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long offsetsOffset;
+    private final int accounts;
+    private final long operations;
+    private final long maxOperationId;
+    private final Date start;
+    private final Date end;
+    private final int part;
+    private final boolean lastPart;
+
+    private Segment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (buffer.capacity() < HEADER_SIZE + FOOTER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getShort(Integer.BYTES) != VERSION || buffer.getInt(buffer.capacity() - Integer.BYTES) != MAGIC) {
+            throw new IllegalStateException("Not a complete segment file: " + path);
+        }
+        this.offsetsOffset = buffer.getLong(footer + Long.BYTES);
+        this.accounts = buffer.getInt(footer + 2 * Long.BYTES);
+        this.operations = buffer.getLong(footer + 2 * Long.BYTES + Integer.BYTES);
+        this.maxOperationId = buffer.getLong(footer + 3 * Long.BYTES + Integer.BYTES);
+        this.start = new Date(buffer.getLong(footer + 4 * Long.BYTES + Integer.BYTES));
+        this.end = new Date(buffer.getLong(footer + 5 * Long.BYTES + Integer.BYTES));
+        this.part = buffer.getInt(footer + 6 * Long.BYTES + Integer.BYTES);
+        this.lastPart = buffer.get(footer + 6 * Long.BYTES + 2 * Integer.BYTES) != 0;
+    }
+
+    static Segment open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping outlives the channel
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map segment " + path, e);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long operations() {
+        return operations;
+    }
+
+    long maxOperationId() {
+        return maxOperationId;
+    }
+
+    /** Start of the period, included. */
+    Date start() {
+        return start;
+    }
+
+    /** End of the period, excluded. */
+    Date end() {
+        return end;
+    }
+
+    int part() {
+        return part;
+    }
+
+    boolean isLastPart() {
+        return lastPart;
+    }
+
+    /** The account's index entry, or null when it had no operation in the period. */
+    Entry find(String accountId) {
+        int low = 0;
+        int high = accounts - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Entry entry = entryAt((int) buffer.getLong((int) (offsetsOffset + (long) middle * Long.BYTES)));
+            int comparison = entry.accountId().compareTo(accountId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /** The operations of the entry's account, in (date, id) order. */
+    List<ArchivedOperation> read(Entry entry) {
+        byte[] raw = new byte[entry.rawLength()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) entry.blockOffset(), entry.compressedLength()));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, read, raw.length - read);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("truncated block");
+                }
+                read += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block of account " + entry.accountId() + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+        ByteBuffer block = ByteBuffer.wrap(raw);
+        OperationType[] types = OperationType.values();
+        List<ArchivedOperation> operations = new ArrayList<>(entry.count());
+        for (int i = 0; i < entry.count(); i++) {
+            long id = block.getLong();
+            Date date = new Date(block.getLong());
+            OperationType type = types[block.get()];
+            long amount = block.getLong();
+            int length = block.getInt();
+            String description = null;
+            if (length >= 0) {
+                description = new String(raw, block.position(), length, StandardCharsets.UTF_8);
+                block.position(block.position() + length);
+            }
+            operations.add(new ArchivedOperation(id, date, type, amount, description));
+        }
+        return operations;
+    }
+
+    private Entry entryAt(int position) {
+        ByteBuffer view = buffer.duplicate().position(position);
+        String accountId = readString(view);
+        String currency = readString(view);
+        return new Entry(accountId, currency, view.getLong(), view.getInt(), view.getInt(), view.getInt(), view.getLong());
+    }
+
+    private static String readString(ByteBuffer view) {
+        byte[] bytes = new byte[view.getShort()];
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param net credits minus debits of the account in the period, in minor units
+     */
+    record Entry(String accountId, String currency, long blockOffset, int compressedLength, int rawLength, int count, long net) {
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.springbootbank.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the segment files of one period from its operations, added in (account id, date, id) order.
+ * Parts are written under a temporary name and only {@link #publish} moves them into place, once they
+ * are on disk, so a reader never maps a half-written file. The index entries of a part are spilled
+ * to a side file while its blocks are written, and appended after them.
+ */
+final class SegmentWriter implements Closeable {
+    /** A mapping of one file is limited to 2 GB. */
+    private static final long MAX_PART_BYTES = 1L << 30;
+
+    private final Path directory;
+    private final String name;
+    private final Date start;
+    private final Date end;
+    private final long maxPartBytes;
+    private final String token = UUID.randomUUID().toString();
+    private final Deflater deflater = new Deflater();
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+    private final DataOutputStream rawOut = new DataOutputStream(raw);
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private final byte[] chunk = new byte[64 * 1024];
+    private final List<Path> written = new ArrayList<>();
+    private boolean published;
+
+    private int part;
+    private Path partPath;
+    private FileChannel channel;
+    private long position;
+    private Path indexPath;
+    private DataOutputStream indexOut;
+    private long[] entryOffsets = new long[1024];
+    private int entries;
+    private long partOperations;
+    private long partMaxId;
+
+    private String accountId;
+    private String currency;
+    private int count;
+    private long net;
+
+    /**
+     * @param name file name of the period, without the part number and suffix
+     */
+    SegmentWriter(Path directory, String name, Date start, Date end, long maxPartBytes) {
+        this.directory = directory;
+        this.name = name;
+        this.start = start;
+        this.end = end;
+        this.maxPartBytes = Math.min(maxPartBytes, MAX_PART_BYTES);
+    }
+
+    void add(String accountId, String currency, ArchivedOperation operation) throws IOException {
+        if (!accountId.equals(this.accountId)) {
+            if (this.accountId != null && accountId.compareTo(this.accountId) < 0) {
+                // the index is searched in String order
+                throw new IllegalStateException("Operations must be added in account id order: " + accountId + " after " + this.accountId);
+            }
+            endAccount();
+            if (channel != null && position >= maxPartBytes) {
+                endPart(false);
+            }
+            this.accountId = accountId;
+            this.currency = currency;
+        }
+        rawOut.writeLong(operation.id());
+        rawOut.writeLong(operation.date().getTime());
+        rawOut.writeByte(operation.type().ordinal());
+        rawOut.writeLong(operation.amount());
+        if (operation.description() == null) {
+            rawOut.writeInt(-1);
+        } else {
+            byte[] description = operation.description().getBytes(StandardCharsets.UTF_8);
+            rawOut.writeInt(description.length);
+            rawOut.write(description);
+        }
+        count++;
+        net = Math.addExact(net, operation.signedAmount());
+        partOperations++;
+        partMaxId = Math.max(partMaxId, operation.id());
+    }
+
+    /** Completes the last part; a period without operations still gets one, empty, so the archived periods have no gap. */
+    int finish() throws IOException {
+        endAccount();
+        if (channel == null) {
+            startPart();
+        }
+        endPart(true);
+        return written.size();
+    }
+
+    /** Moves the finished parts to their final names, the last part last. */
+    List<Path> publish() throws IOException {
+        List<Path> paths = new ArrayList<>(written.size());
+        for (int i = 0; i < written.size(); i++) {
+            Path target = directory.resolve(name + "-" + i + Segment.SUFFIX);
+            Files.move(written.get(i), target, StandardCopyOption.ATOMIC_MOVE);
+            paths.add(target);
+        }
+        published = true;
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // not every platform can sync a directory
+        }
+        return paths;
+    }
+
+    private void endAccount() throws IOException {
+        if (accountId == null || count == 0) {
+            return;
+        }
+        if (channel == null) {
+            startPart();
+        }
+        deflater.reset();
+        deflater.setInput(raw.toByteArray());
+        deflater.finish();
+        compressed.reset();
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        long blockOffset = position;
+        write(ByteBuffer.wrap(compressed.toByteArray()));
+
+        if (entries == entryOffsets.length) {
+            entryOffsets = Arrays.copyOf(entryOffsets, entries * 2);
+        }
+        entryOffsets[entries++] = indexOut.size();
+        writeString(indexOut, accountId);
+        writeString(indexOut, currency);
+        indexOut.writeLong(blockOffset);
+        indexOut.writeInt(compressed.size());
+        indexOut.writeInt(raw.size());
+        indexOut.writeInt(count);
+        indexOut.writeLong(net);
+
+        raw.reset();
+        count = 0;
+        net = 0;
+    }
+
+    private void startPart() throws IOException {
+        partPath = directory.resolve(name + "-" + part + Segment.SUFFIX + "." + token + ".tmp");
+        indexPath = directory.resolve(name + "-" + part + ".index." + token + ".tmp");
+        channel = FileChannel.open(partPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath, StandardOpenOption.CREATE_NEW)));
+        position = 0;
+        write(ByteBuffer.allocate(Segment.HEADER_SIZE).putInt(Segment.MAGIC).putShort(Segment.VERSION).flip());
+    }
+
+    private void endPart(boolean last) throws IOException {
+        indexOut.close();
+        long indexOffset = position;
+        long indexSize = Files.size(indexPath);
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < indexSize) {
+                transferred += index.transferTo(transferred, indexSize - transferred, channel);
+            }
+        }
+        position += indexSize;
+        Files.delete(indexPath);
+
+        long offsetsOffset = position;
+        ByteBuffer offsets = ByteBuffer.allocate(entries * Long.BYTES);
+        for (int i = 0; i < entries; i++) {
+            offsets.putLong(indexOffset + entryOffsets[i]);
+        }
+        write(offsets.flip());
+        write(ByteBuffer.allocate(Segment.FOOTER_SIZE)
+                .putLong(indexOffset)
+                .putLong(offsetsOffset)
+                .putInt(entries)
+                .putLong(partOperations)
+                .putLong(partMaxId)
+                .putLong(start.getTime())
+                .putLong(end.getTime())
+                .putInt(part)
+                .put((byte) (last ? 1 : 0))
+                .putInt(Segment.MAGIC)
+                .flip());
+        channel.force(true);
+        channel.close();
+        channel = null;
+        written.add(partPath);
+        part++;
+        entries = 0;
+        partOperations = 0;
+        partMaxId = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Deletes whatever was not published. */
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (channel != null) {
+            channel.close();
+            indexOut.close();
+            Files.deleteIfExists(partPath);
+            Files.deleteIfExists(indexPath);
+        }
+        if (!published) {
+            for (Path path : written) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.springbootbank.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single pool of {@code spring.datasource} by a primary pool plus one pool per URL of
+ * {@code bank.datasource.replicas.urls}, routed by {@link ReplicaRoutingDataSource}.
+ * Replica pools copy the primary pool settings, are read-only and start lazily, so a replica
+ * down at boot only means reads stay on the primary.
+ */
+@Configuration
+@ConditionalOnProperty("bank.datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             MeterRegistry meterRegistry,
+                                                             @Value("${bank.datasource.replicas.urls}") List<String> urls,
+                                                             @Value("${bank.datasource.replicas.username:}") String username,
+                                                             @Value("${bank.datasource.replicas.password:}") String password,
+                                                             @Value("${bank.datasource.replicas.max-lag:PT5S}") Duration maxLag,
+                                                             @Value("${bank.datasource.replicas.lag-check-interval:PT1S}") Duration lagCheckInterval) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i));
+            config.setPoolName("replica-" + i);
+            config.setReadOnly(true);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            if (!username.isEmpty()) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            HikariDataSource replica = new HikariDataSource();
+            config.copyStateTo(replica);
+            replicas.add(replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag);
+        routing.startLagChecks(lagCheckInterval);
+        Gauge.builder("bank.datasource.replicas.healthy", routing, ReplicaRoutingDataSource::healthyReplicaCount)
+                .description("Replicas within the allowed replication lag")
+                .register(meterRegistry);
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
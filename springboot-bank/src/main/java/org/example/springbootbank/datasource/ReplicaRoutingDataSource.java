@@ -0,0 +1,193 @@
+package org.example.springbootbank.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to a replica and every other connection to the
+ * primary. Replicas are used round-robin, and only while their replication lag is within
+ * {@code maxLag}: {@link #checkLag} writes the current time to a heartbeat row on the primary and
+ * reads back the copy each replica has received, so a replica that falls behind, or cannot be
+ * reached, is skipped until it catches up. With no replica in time, reads go to the primary.
+ * The check runs on a thread of its own, started by {@link #startLagChecks}, so a long scheduled job
+ * cannot hold it back and leave a lagging replica serving reads.
+ * The key is looked up when a connection is taken, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: it holds the physical
+ * connection back until the first statement, once the transaction has declared itself read-only.
+ * Reads that must see the caller's own writes, such as checking an idempotency key, go through
+ * {@link #onPrimary}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    static final String PRIMARY = "primary";
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas = new HashMap<>();
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+    private volatile boolean heartbeatTableCreated;
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.maxLagMillis = maxLag.toMillis();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.put("replica-" + i, replicas.get(i));
+            targets.put("replica-" + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /** Runs the action with its connections taken from the primary, even within a read-only transaction. */
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PINNED.get() != null) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /** Number of replicas currently taking reads. */
+    public int healthyReplicaCount() {
+        return healthy.size();
+    }
+
+    /** Checks the lag every {@code interval}, the first time right away. */
+    public synchronized void startLagChecks(Duration interval) {
+        if (lagChecker != null) {
+            throw new IllegalStateException("Lag checks are already running");
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkLag();
+            } catch (RuntimeException e) {
+                // a failed run must not cancel the next ones
+                log.warn("Replication lag check failed", e);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkLag() {
+        long now = System.currentTimeMillis();
+        try {
+            writeHeartbeat(now);
+        } catch (SQLException e) {
+            log.warn("Could not write the replication heartbeat on the primary", e);
+        }
+        List<String> inTime = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            try {
+                Long beat = readHeartbeat(replica.getValue());
+                if (beat == null) {
+                    log.debug("No replication heartbeat on {} yet", replica.getKey());
+                } else if (now - beat > maxLagMillis) {
+                    log.warn("Replica {} is {} ms behind, reading from the primary instead", replica.getKey(), now - beat);
+                } else {
+                    inTime.add(replica.getKey());
+                }
+            } catch (SQLException e) {
+                log.warn("Replica {} is unreachable: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        inTime.sort(null);
+        healthy = List.copyOf(inTime);
+    }
+
+    private void writeHeartbeat(long now) throws SQLException {
+        try (Connection connection = primary.getConnection()) {
+            if (!heartbeatTableCreated) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("create table if not exists replica_heartbeat (id int primary key, beat_millis bigint not null)");
+                }
+                heartbeatTableCreated = true;
+            }
+            try (PreparedStatement update = connection.prepareStatement("update replica_heartbeat set beat_millis = ? where id = 1")) {
+                update.setLong(1, now);
+                if (update.executeUpdate() == 0) {
+                    try (PreparedStatement insert = connection.prepareStatement("insert into replica_heartbeat (id, beat_millis) values (1, ?)")) {
+                        insert.setLong(1, now);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+    }
+
+    private static Long readHeartbeat(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select beat_millis from replica_heartbeat where id = 1")) {
+            return resultSet.next() ? resultSet.getLong(1) : null;
+        } catch (SQLException e) {
+            // the table itself has not been replicated yet
+            if (e.getSQLState() != null && e.getSQLState().startsWith("42")) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        synchronized (this) {
+            if (lagChecker != null) {
+                lagChecker.shutdownNow();
+            }
+        }
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.springbootbank.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AccountHistoryCursorDTO {
+    private String accountId;
+    private double balance;
+    private int pageSize;
+    private String nextCursor;
+    private boolean hasMore;
+    private Integer totalPages;
+    private List<AccountOperationDTO> accountOperationDTOs;
+}
@@ -0,0 +1,20 @@
+package org.example.springbootbank.dtos;
+
+import lombok.Data;
+
+import java.time.YearMonth;
+import java.util.Date;
+import java.util.List;
+
+@Data
+public class ArchiveReportDTO {
+    private Date startedAt;
+    private long elapsedMillis;
+    /** The months archived by this run. */
+    private List<YearMonth> months;
+    private long operations;
+    /** Rows deleted from the table, including those left over by an interrupted run. */
+    private long deletedRows;
+    /** Operations dated before it are now served from the archive. */
+    private Date horizon;
+}
@@ -0,0 +1,16 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAtDTO {
+    private String accountId;
+    private Date at;
+    private double balance;
+}
@@ -0,0 +1,5 @@
+package org.example.springbootbank.dtos;
+
+public enum BulkTransferMode {
+    ALL_OR_NOTHING, BEST_EFFORT
+}
@@ -0,0 +1,13 @@
+package org.example.springbootbank.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkTransferResultDTO {
+    private BulkTransferMode mode;
+    private int applied;
+    private int rejected;
+    private List<TransferResultDTO> results;
+}
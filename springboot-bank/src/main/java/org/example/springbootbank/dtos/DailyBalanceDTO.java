@@ -0,0 +1,19 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyBalanceDTO {
+    private String accountId;
+    private LocalDate day;
+    private double closingBalance;
+    private double credits;
+    private double debits;
+    private long operationCount;
+}
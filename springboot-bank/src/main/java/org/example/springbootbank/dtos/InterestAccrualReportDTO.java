@@ -0,0 +1,19 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InterestAccrualReportDTO {
+    private LocalDate period;
+    /** Checkpoint this run started from, empty unless it resumed an interrupted one. */
+    private String resumedFrom;
+    private long accounts;
+    private long operations;
+    private long elapsedMillis;
+}
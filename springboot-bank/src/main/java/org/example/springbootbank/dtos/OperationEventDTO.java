@@ -0,0 +1,23 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.springbootbank.entities.OperationType;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationEventDTO {
+    /** Delivery is at least once: a consumer drops an event id it has already seen. */
+    private long eventId;
+    private Long operationId;
+    private String accountId;
+    private OperationType type;
+    private double amount;
+    private String currency;
+    private String description;
+    private Date date;
+}
@@ -0,0 +1,15 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationMismatchDTO {
+    private String accountId;
+    private double balance;
+    private double ledgerBalance;
+    private double difference;
+}
@@ -0,0 +1,16 @@
+package org.example.springbootbank.dtos;
+
+import lombok.Data;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+public class ReconciliationReportDTO {
+    private Date startedAt;
+    private long elapsedMillis;
+    private long accounts;
+    private long operations;
+    private long mismatches;
+    private List<ReconciliationMismatchDTO> mismatchDetails;
+}
@@ -0,0 +1,14 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotRebuildDTO {
+    private int accounts;
+    private int dailyBalances;
+    private long elapsedMillis;
+}
@@ -0,0 +1,5 @@
+package org.example.springbootbank.dtos;
+
+public enum StatementBucket {
+    DAY, MONTH, YEAR
+}
@@ -0,0 +1,22 @@
+package org.example.springbootbank.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.springbootbank.entities.OperationType;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLineDTO {
+    private String accountId;
+    /** First day of the bucket. */
+    private LocalDate period;
+    private OperationType type;
+    private long operationCount;
+    private double total;
+    private double minAmount;
+    private double maxAmount;
+}
@@ -0,0 +1,5 @@
+package org.example.springbootbank.dtos;
+
+public enum TransferStatus {
+    APPLIED, REJECTED, NOT_APPLIED
+}
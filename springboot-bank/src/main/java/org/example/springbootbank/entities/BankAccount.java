@@ -14,8 +14,14 @@ public abstract class BankAccount {
     @Id
     private String id;
     private Date createdAt;
-    private double balance;
+    /** In minor units of the currency, see {@link Money}. */
+    private long balance;
+    /** Balance the account was opened with; the ledger accounts for everything since. */
+    private long openingBalance;
+    @Column(length = 3)
     private String currency;
+    @Version
+    private Long version;
 
     @Enumerated(EnumType.STRING)
     private AccountStatus status;
@@ -0,0 +1,19 @@
+package org.example.springbootbank.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * End-of-day snapshot of an account: its balance after the last operation of the day and the
+ * day's turnover. Only days with operations have a row.
+ */
+@Entity
+@Data @AllArgsConstructor @NoArgsConstructor
+public class DailyBalance {
+    @EmbeddedId
+    private DailyBalanceId id;
+    private long closingBalance;
+    private long credits;
+    private long debits;
+    private long operationCount;
+}
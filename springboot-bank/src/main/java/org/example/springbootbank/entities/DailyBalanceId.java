@@ -0,0 +1,17 @@
+package org.example.springbootbank.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data @AllArgsConstructor @NoArgsConstructor
+public class DailyBalanceId implements Serializable {
+    @Column(name = "account_id", length = 36)
+    private String accountId;
+    @Column(name = "balance_day")
+    private LocalDate day;
+}
@@ -0,0 +1,30 @@
+package org.example.springbootbank.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * A money movement submitted with an {@code Idempotency-Key}: claimed before the movement runs,
+ * completed with its response once it has been applied.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_idempotency_record_created_at", columnList = "createdAt"))
+@Data @AllArgsConstructor @NoArgsConstructor
+public class IdempotencyRecord {
+    /** The caller's name and the key it sent. */
+    @Id
+    @Column(length = 320)
+    private String id;
+    /** Digest of the operation and request body the key was first used with. */
+    @Column(length = 64)
+    private String fingerprint;
+    /** The response as JSON, unbounded: a bulk transfer report grows with its transfers. */
+    @Lob
+    private String response;
+    private boolean completed;
+    private Date createdAt;
+    @Version
+    private Long version;
+}
@@ -0,0 +1,24 @@
+package org.example.springbootbank.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Progress of the interest accrual of one period, so an interrupted run resumes where it stopped.
+ */
+@Entity
+@Data @AllArgsConstructor @NoArgsConstructor
+public class InterestAccrualRun {
+    /** Last day of the accrued period. */
+    @Id
+    private LocalDate period;
+    /** Every savings account up to this id is accrued; empty before the first chunk. */
+    private String checkpoint;
+    private long accounts;
+    private long operations;
+    private Date startedAt;
+    private Date completedAt;
+}
@@ -0,0 +1,58 @@
+package org.example.springbootbank.entities;
+
+import java.util.Currency;
+
+/**
+ * Amounts are stored and computed as {@code long} minor units of the account's currency
+ * (centimes for MAD, yen for JPY), so balances are exact and adding an amount allocates nothing.
+ * The API keeps exchanging decimal numbers: {@link #toMinor} converts an incoming amount, refusing
+ * more decimals than the currency has, and {@link #toMajor} gives back the double closest to the
+ * exact value, which JSON prints as that exact decimal.
+ * Sums go through {@link Math#addExact} and fail on overflow instead of wrapping around.
+ */
+public final class Money {
+    public static final String DEFAULT_CURRENCY = "MAD";
+    /** Largest amount in minor units a double holds exactly, 2^53. */
+    private static final long MAX_EXACT = 1L << 53;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L};
+
+    private Money() {
+    }
+
+    /** The currency, {@link #DEFAULT_CURRENCY} for accounts created without one. */
+    public static String currency(String currency) {
+        return currency == null ? DEFAULT_CURRENCY : currency;
+    }
+
+    /** Number of decimals of the currency, that of {@link #DEFAULT_CURRENCY} when none is set. */
+    public static int scaleOf(String currency) {
+        int digits = Currency.getInstance(currency(currency)).getDefaultFractionDigits();
+        return Math.max(0, digits);
+    }
+
+    public static long toMinor(double amount, String currency) {
+        long factor = POWERS_OF_TEN[scaleOf(currency)];
+        if (!(Math.abs(amount) < (double) MAX_EXACT / factor)) {
+            throw new IllegalArgumentException("Amount " + amount + " is out of range");
+        }
+        long minor = Math.round(amount * factor);
+        // the closest double of the exact minor amount is the parsed amount itself, unless it had more decimals
+        if ((double) minor / factor != amount) {
+            throw new IllegalArgumentException("Amount " + amount + " has more than " + scaleOf(currency) + " decimals");
+        }
+        return minor;
+    }
+
+    public static double toMajor(long minor, String currency) {
+        return (double) minor / POWERS_OF_TEN[scaleOf(currency)];
+    }
+
+    public static long add(long minor, long amount) {
+        return Math.addExact(minor, amount);
+    }
+
+    public static long subtract(long minor, long amount) {
+        return Math.subtractExact(minor, amount);
+    }
+}
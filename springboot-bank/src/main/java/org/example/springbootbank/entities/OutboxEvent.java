@@ -0,0 +1,32 @@
+package org.example.springbootbank.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * An account operation waiting to be published, written in the transaction of the operation itself
+ * and deleted by the relay once every sink has it.
+ */
+@Entity
+@Data @NoArgsConstructor @AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", sequenceName = "outbox_event_seq", allocationSize = 50)
+    private Long id;
+
+    private Long operationId;
+    private String accountId;
+    @Enumerated(EnumType.STRING)
+    private OperationType type;
+    /** In minor units of {@link #currency}. */
+    private long amount;
+    @Column(length = 3)
+    private String currency;
+    private String description;
+    private Date date;
+}
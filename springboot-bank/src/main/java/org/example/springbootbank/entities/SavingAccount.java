@@ -4,9 +4,14 @@ import jakarta.persistence.DiscriminatorValue;
 import jakarta.persistence.Entity;
 import lombok.*;
 
+import java.time.LocalDate;
+
 @Entity
 @DiscriminatorValue("SA")
 @Data @AllArgsConstructor @NoArgsConstructor
 public class SavingAccount extends BankAccount {
+    /** Yearly rate, in percent. */
     private double interestRate;
+    /** Last day of the last period interest was credited for. */
+    private LocalDate interestAccruedUntil;
 }
@@ -0,0 +1,11 @@
+package org.example.springbootbank.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** The {@code Idempotency-Key} is in use by a request still running, or was used with another request. */
+public class IdempotencyKeyConflictException extends ResponseStatusException {
+    public IdempotencyKeyConflictException(HttpStatus status, String message) {
+        super(status, message);
+    }
+}
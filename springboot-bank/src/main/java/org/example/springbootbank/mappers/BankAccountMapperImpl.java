@@ -2,82 +2,150 @@ package org.example.springbootbank.mappers;
 
 
 
+import org.example.springbootbank.archive.ArchivedOperation;
 import org.example.springbootbank.dtos.*;
 import org.example.springbootbank.entities.*;
-import org.springframework.beans.BeanUtils;
+import org.example.springbootbank.repository.BankAccountProjection;
 import org.springframework.stereotype.Service;
 
 
+import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 public class BankAccountMapperImpl {
+    private static final String SAVING_ACCOUNT_TYPE = SavingAccount.class.getSimpleName();
+    private static final String CURRENT_ACCOUNT_TYPE = CurrentAccount.class.getSimpleName();
 
     public CustomerDTO fromCustomer(Customer customer) {
-        CustomerDTO customerDTO = new CustomerDTO();
-        BeanUtils.copyProperties(customer, customerDTO);
-        return customerDTO;
+        return new CustomerDTO(customer.getId(), customer.getName(), customer.getEmail());
     }
 
     public Customer fromCustomerDTO(CustomerDTO customerDTO) {
         Customer customer = new Customer();
-        BeanUtils.copyProperties(customerDTO, customer);
+        customer.setId(customerDTO.getId());
+        customer.setName(customerDTO.getName());
+        customer.setEmail(customerDTO.getEmail());
         return customer;
     }
 
     public SavingBankAccountDTO fromSavingBankAccount(SavingAccount savingAccount) {
         SavingBankAccountDTO savingBankAccountDTO = new SavingBankAccountDTO();
-        BeanUtils.copyProperties(savingAccount, savingBankAccountDTO);
+        copyAccountFields(savingAccount, savingBankAccountDTO);
+        savingBankAccountDTO.setInterestRate(savingAccount.getInterestRate());
         savingBankAccountDTO.setCustomerDTO(fromCustomer(savingAccount.getCustomer()));
-        savingBankAccountDTO.setType(savingAccount.getClass().getSimpleName());
+        savingBankAccountDTO.setType(SAVING_ACCOUNT_TYPE);
         return savingBankAccountDTO;
     }
 
     public SavingAccount fromSavingBankAccountDTO(SavingBankAccountDTO savingBankAccountDTO) {
         SavingAccount savingAccount = new SavingAccount();
-        BeanUtils.copyProperties(savingBankAccountDTO, savingAccount);
+        copyAccountFields(savingBankAccountDTO, savingAccount);
+        savingAccount.setInterestRate(savingBankAccountDTO.getInterestRate());
         savingAccount.setCustomer(fromCustomerDTO(savingBankAccountDTO.getCustomerDTO()));
         return savingAccount;
     }
 
     public CurrentBankAccountDTO fromCurrentBankAccount(CurrentAccount currentAccount) {
         CurrentBankAccountDTO currentBankAccountDTO = new CurrentBankAccountDTO();
-        BeanUtils.copyProperties(currentAccount, currentBankAccountDTO);
+        copyAccountFields(currentAccount, currentBankAccountDTO);
+        currentBankAccountDTO.setOverDraft(currentAccount.getOverDraft());
         currentBankAccountDTO.setCustomerDTO(fromCustomer(currentAccount.getCustomer()));
-        currentBankAccountDTO.setType(currentAccount.getClass().getSimpleName());
+        currentBankAccountDTO.setType(CURRENT_ACCOUNT_TYPE);
         return currentBankAccountDTO;
     }
 
     public CurrentAccount fromCurrentBankAccountDTO(CurrentBankAccountDTO currentBankAccountDTO) {
         CurrentAccount currentAccount = new CurrentAccount();
-        BeanUtils.copyProperties(currentBankAccountDTO, currentAccount);
+        copyAccountFields(currentBankAccountDTO, currentAccount);
+        currentAccount.setOverDraft(currentBankAccountDTO.getOverDraft());
         currentAccount.setCustomer(fromCustomerDTO(currentBankAccountDTO.getCustomerDTO()));
         return currentAccount;
     }
 
     public BankAccountDTO fromBankAccount(BankAccount bankAccount) {
         BankAccountDTO bankAccountDTO;
-        if (bankAccount instanceof SavingAccount) {
-            bankAccountDTO = fromSavingBankAccount((SavingAccount) bankAccount);
+        if (bankAccount instanceof SavingAccount savingAccount) {
+            bankAccountDTO = fromSavingBankAccount(savingAccount);
         } else {
             bankAccountDTO = fromCurrentBankAccount((CurrentAccount) bankAccount);
         }
         return bankAccountDTO;
     }
 
+    public BankAccountDTO fromBankAccountProjection(BankAccountProjection projection) {
+        BankAccountDTO bankAccountDTO;
+        if (projection.type() == SavingAccount.class) {
+            SavingBankAccountDTO savingBankAccountDTO = new SavingBankAccountDTO();
+            savingBankAccountDTO.setInterestRate(projection.interestRate() == null ? 0 : projection.interestRate());
+            bankAccountDTO = savingBankAccountDTO;
+        } else {
+            CurrentBankAccountDTO currentBankAccountDTO = new CurrentBankAccountDTO();
+            currentBankAccountDTO.setOverDraft(projection.overDraft() == null ? 0 : projection.overDraft());
+            bankAccountDTO = currentBankAccountDTO;
+        }
+        bankAccountDTO.setId(projection.id());
+        bankAccountDTO.setBalance(Money.toMajor(projection.balance(), projection.currency()));
+        bankAccountDTO.setCurrency(Money.currency(projection.currency()));
+        bankAccountDTO.setCreatedAt(projection.createdAt());
+        bankAccountDTO.setStatus(projection.status());
+        bankAccountDTO.setType(projection.type() == SavingAccount.class ? SAVING_ACCOUNT_TYPE : CURRENT_ACCOUNT_TYPE);
+        if (projection.customerId() != null) {
+            bankAccountDTO.setCustomerDTO(new CustomerDTO(projection.customerId(), projection.customerName(), projection.customerEmail()));
+        }
+        return bankAccountDTO;
+    }
+
     public AccountOperationDTO fromAccountOperation(AccountOperation accountOperation) {
         AccountOperationDTO accountOperationDTO = new AccountOperationDTO();
-        BeanUtils.copyProperties(accountOperation, accountOperationDTO);
+        accountOperationDTO.setId(accountOperation.getId());
+        // a loaded entity holds a java.sql.Timestamp, which never equals the plain Date of an archived operation
+        Date date = accountOperation.getDate();
+        accountOperationDTO.setOperationDate(date == null ? null : new Date(date.getTime()));
+        BankAccount bankAccount = accountOperation.getBankAccount();
+        accountOperationDTO.setAmount(Money.toMajor(accountOperation.getAmount(), bankAccount == null ? null : bankAccount.getCurrency()));
+        accountOperationDTO.setType(accountOperation.getType());
+        accountOperationDTO.setDescription(accountOperation.getDescription());
+        return accountOperationDTO;
+    }
+
+    /** Same fields as {@link #fromAccountOperation}, so archived and live operations look alike. */
+    public AccountOperationDTO fromArchivedOperation(ArchivedOperation archivedOperation, String currency) {
+        AccountOperationDTO accountOperationDTO = new AccountOperationDTO();
+        accountOperationDTO.setId(archivedOperation.id());
+        accountOperationDTO.setOperationDate(archivedOperation.date());
+        accountOperationDTO.setAmount(Money.toMajor(archivedOperation.amount(), currency));
+        accountOperationDTO.setType(archivedOperation.type());
+        accountOperationDTO.setDescription(archivedOperation.description());
         return accountOperationDTO;
     }
 
     public AccountOperation fromAccountOperationDTO(AccountOperationDTO accountOperationDTO) {
         AccountOperation accountOperation = new AccountOperation();
-        BeanUtils.copyProperties(accountOperationDTO, accountOperation);
+        accountOperation.setId(accountOperationDTO.getId());
+        accountOperation.setAmount(Money.toMinor(accountOperationDTO.getAmount(), Money.DEFAULT_CURRENCY));
+        accountOperation.setType(accountOperationDTO.getType());
+        accountOperation.setDescription(accountOperationDTO.getDescription());
         return accountOperation;
     }
 
+    private static void copyAccountFields(BankAccount source, BankAccountDTO target) {
+        target.setId(source.getId());
+        target.setBalance(Money.toMajor(source.getBalance(), source.getCurrency()));
+        target.setCurrency(Money.currency(source.getCurrency()));
+        target.setCreatedAt(source.getCreatedAt());
+        target.setStatus(source.getStatus());
+    }
+
+    private static void copyAccountFields(BankAccountDTO source, BankAccount target) {
+        target.setId(source.getId());
+        target.setCurrency(Money.currency(source.getCurrency()));
+        target.setBalance(Money.toMinor(source.getBalance(), target.getCurrency()));
+        target.setCreatedAt(source.getCreatedAt());
+        target.setStatus(source.getStatus());
+    }
+
     public List<AccountOperationDTO> fromAccountOperationList(List<AccountOperation> accountOperations) {
         return accountOperations.stream()
                 .map(this::fromAccountOperation)
@@ -0,0 +1,4 @@
+package org.example.springbootbank.repository;
+
+public record AccountBalance(String id, long balance, long openingBalance, String currency) {
+}
@@ -2,13 +2,108 @@ package org.example.springbootbank.repository;
 
 
 import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.Money;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface AccountOperationRepository extends JpaRepository<AccountOperation, Long> {
     List<AccountOperation> findByBankAccount_Id(String accountId);
-    Page<AccountOperation> findByBankAccount_Id(String accountId, Pageable pageable);
+
+    // the history from the archive horizon on, older operations are read from the archive
+    List<AccountOperation> findByBankAccount_IdAndDateGreaterThanEqualOrderByDateAscIdAsc(String accountId, Date from);
+    Page<AccountOperation> findByBankAccount_IdAndDateGreaterThanEqual(String accountId, Date from, Pageable pageable);
+    List<AccountOperation> findByBankAccount_IdAndDateGreaterThanEqualOrderByDateDescIdDesc(String accountId, Date from, Pageable pageable);
+
+    @Query("select o from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from " +
+            "and (o.date < :date or (o.date = :date and o.id < :id)) order by o.date desc, o.id desc")
+    List<AccountOperation> findPageAfter(@Param("accountId") String accountId,
+                                         @Param("from") Date from,
+                                         @Param("date") Date date,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    long countByBankAccount_Id(String accountId);
+    long countByBankAccount_IdAndDateGreaterThanEqual(String accountId, Date from);
+
+    @Query("select new org.example.springbootbank.repository.DailyTurnover(o.bankAccount.id, cast(o.date as LocalDate), " +
+            "sum(case when o.type = org.example.springbootbank.entities.OperationType.CREDIT then o.amount else 0 end), " +
+            "sum(case when o.type = org.example.springbootbank.entities.OperationType.DEBIT then o.amount else 0 end), " +
+            "count(o)) " +
+            "from AccountOperation o where o.bankAccount.id in :accountIds and o.date >= :from " +
+            "group by o.bankAccount.id, cast(o.date as LocalDate)")
+    List<DailyTurnover> dailyTurnover(@Param("accountIds") Collection<String> accountIds, @Param("from") Date from);
+
+    /** Count, sum, min and max of the account's operations dated in {@code [from, to)}, per type and day. */
+    @Query("select new org.example.springbootbank.repository.OperationAggregate(o.type, year(o.date), month(o.date), day(o.date), " +
+            "coalesce(o.bankAccount.currency, '" + Money.DEFAULT_CURRENCY + "'), count(o), sum(o.amount), min(o.amount), max(o.amount)) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from and o.date < :to " +
+            "group by o.type, year(o.date), month(o.date), day(o.date), o.bankAccount.currency")
+    List<OperationAggregate> aggregateByDay(@Param("accountId") String accountId, @Param("from") Date from, @Param("to") Date to);
+
+    /** Count, sum, min and max of the account's operations dated in {@code [from, to)}, per type and month. */
+    @Query("select new org.example.springbootbank.repository.OperationAggregate(o.type, year(o.date), month(o.date), 1, " +
+            "coalesce(o.bankAccount.currency, '" + Money.DEFAULT_CURRENCY + "'), count(o), sum(o.amount), min(o.amount), max(o.amount)) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from and o.date < :to " +
+            "group by o.type, year(o.date), month(o.date), o.bankAccount.currency")
+    List<OperationAggregate> aggregateByMonth(@Param("accountId") String accountId, @Param("from") Date from, @Param("to") Date to);
+
+    /** Count, sum, min and max of the account's operations dated in {@code [from, to)}, per type and year. */
+    @Query("select new org.example.springbootbank.repository.OperationAggregate(o.type, year(o.date), 1, 1, " +
+            "coalesce(o.bankAccount.currency, '" + Money.DEFAULT_CURRENCY + "'), count(o), sum(o.amount), min(o.amount), max(o.amount)) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from and o.date < :to " +
+            "group by o.type, year(o.date), o.bankAccount.currency")
+    List<OperationAggregate> aggregateByYear(@Param("accountId") String accountId, @Param("from") Date from, @Param("to") Date to);
+
+    /** Credits minus debits of all the account's operations. */
+    @Query("select coalesce(sum(case when o.type = org.example.springbootbank.entities.OperationType.CREDIT then o.amount else -o.amount end), 0) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId")
+    long net(@Param("accountId") String accountId);
+
+    /** The operations dated {@code from} or later of the accounts with an id in {@code (after, last]}, reduced to what the reconciliation sums. */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new org.example.springbootbank.repository.LedgerEntry(o.bankAccount.id, o.type, o.amount) " +
+            "from AccountOperation o where o.bankAccount.id > :after and o.bankAccount.id <= :last and o.date >= :from")
+    List<LedgerEntry> findLedgerEntries(@Param("after") String after, @Param("last") String last, @Param("from") Date from);
+
+    /** Credits minus debits of the account's operations dated in {@code [from, to)}. */
+    @Query("select coalesce(sum(case when o.type = org.example.springbootbank.entities.OperationType.CREDIT then o.amount else -o.amount end), 0) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from and o.date < :to")
+    long netBetween(@Param("accountId") String accountId, @Param("from") Date from, @Param("to") Date to);
+
+    /** Credits minus debits of the account's operations dated {@code from} or later. */
+    @Query("select coalesce(sum(case when o.type = org.example.springbootbank.entities.OperationType.CREDIT then o.amount else -o.amount end), 0) " +
+            "from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from")
+    long netSince(@Param("accountId") String accountId, @Param("from") Date from);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select o from AccountOperation o where o.bankAccount.id = :accountId and o.date >= :from order by o.date, o.id")
+    Stream<AccountOperation> streamByBankAccount_Id(@Param("accountId") String accountId, @Param("from") Date from);
+
+    @Query("select min(o.date) from AccountOperation o")
+    Date findOldestDate();
+
+    /** The operations dated in {@code [from, to)}, in the (account id, date, id) order of the archive segments. */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new org.example.springbootbank.repository.ArchivableOperation(o.bankAccount.id, " +
+            "coalesce(o.bankAccount.currency, '" + Money.DEFAULT_CURRENCY + "'), o.id, o.date, o.type, o.amount, o.description) " +
+            "from AccountOperation o where o.date >= :from and o.date < :to order by o.bankAccount.id, o.date, o.id")
+    Stream<ArchivableOperation> streamToArchive(@Param("from") Date from, @Param("to") Date to);
+
+    /** Ids of the operations dated in {@code [from, to)} with an id in {@code (after, maxId]}, in id order. */
+    @Query("select o.id from AccountOperation o where o.id > :after and o.id <= :maxId and o.date >= :from and o.date < :to order by o.id")
+    List<Long> findArchivedIds(@Param("after") long after, @Param("maxId") long maxId,
+                               @Param("from") Date from, @Param("to") Date to, Pageable pageable);
 }
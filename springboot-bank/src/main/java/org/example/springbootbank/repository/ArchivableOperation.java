@@ -0,0 +1,12 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.OperationType;
+
+import java.util.Date;
+
+/**
+ * An operation read for the archive, with the account fields a segment keeps.
+ */
+public record ArchivableOperation(String accountId, String currency, Long id, Date date, OperationType type,
+                                  long amount, String description) {
+}
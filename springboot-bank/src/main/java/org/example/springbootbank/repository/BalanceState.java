@@ -0,0 +1,7 @@
+package org.example.springbootbank.repository;
+
+/**
+ * An account's balance in minor units along with the row version it was read at.
+ */
+public record BalanceState(String id, long balance, String currency, Long version) {
+}
@@ -0,0 +1,21 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.AccountStatus;
+
+import java.util.Date;
+
+/**
+ * One row of the account list: the account, its customer and the columns of both account types.
+ */
+public record BankAccountProjection(String id,
+                                    long balance,
+                                    String currency,
+                                    Date createdAt,
+                                    AccountStatus status,
+                                    Class<?> type,
+                                    Long customerId,
+                                    String customerName,
+                                    String customerEmail,
+                                    Double overDraft,
+                                    Double interestRate) {
+}
@@ -1,7 +1,49 @@
 package org.example.springbootbank.repository;
 
 import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.SavingAccount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface BankAccountRepository extends JpaRepository<BankAccount, String> {
-}
\ No newline at end of file
+    @Query("select new org.example.springbootbank.repository.BankAccountProjection(" +
+            "a.id, a.balance, a.currency, a.createdAt, a.status, type(a), c.id, c.name, c.email, " +
+            "treat(a as CurrentAccount).overDraft, treat(a as SavingAccount).interestRate) " +
+            "from BankAccount a left join a.customer c order by a.createdAt, a.id")
+    List<BankAccountProjection> findAllProjectedBy(Pageable pageable);
+
+    @Query("select coalesce(a.currency, '" + Money.DEFAULT_CURRENCY + "') from BankAccount a where a.id = :id")
+    Optional<String> findCurrency(@Param("id") String id);
+
+    @Query("select a.id from BankAccount a where a.id > :after order by a.id")
+    List<String> findIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("select new org.example.springbootbank.repository.AccountBalance(a.id, a.balance, a.openingBalance, a.currency) from BankAccount a where a.id in :ids")
+    List<AccountBalance> findBalances(@Param("ids") Collection<String> ids);
+
+    @Query("select new org.example.springbootbank.repository.AccountBalance(a.id, a.balance, a.openingBalance, a.currency) " +
+            "from BankAccount a where a.id > :after order by a.id")
+    List<AccountBalance> findBalancesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("select new org.example.springbootbank.repository.BalanceState(a.id, a.balance, a.currency, a.version) from BankAccount a where a.id in :ids")
+    List<BalanceState> findBalanceStates(@Param("ids") Collection<String> ids);
+
+    @Query("select new org.example.springbootbank.repository.BalanceState(a.id, a.balance, a.currency, a.version) " +
+            "from BankAccount a where a.id > :after order by a.id")
+    List<BalanceState> findBalanceStatesAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("select a.id from SavingAccount a where a.id > :after order by a.id")
+    List<String> findSavingAccountIdsAfter(@Param("after") String after, Pageable pageable);
+
+    @Query("select a from SavingAccount a left join fetch a.customer where a.id in :ids " +
+            "and (a.interestAccruedUntil is null or a.interestAccruedUntil < :period)")
+    List<SavingAccount> findSavingAccountsToAccrue(@Param("ids") Collection<String> ids, @Param("period") LocalDate period);
+}
@@ -1,6 +1,8 @@
 package org.example.springbootbank.repository;
 
+import org.example.springbootbank.dtos.CustomerDTO;
 import org.example.springbootbank.entities.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,4 +12,10 @@ import java.util.List;
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     @Query("select c from Customer c where c.name like %:kw%")
     List<Customer> searchCustomer(@Param("kw") String keyword);
+
+    @Query("select new org.example.springbootbank.dtos.CustomerDTO(c.id, c.name, c.email) from Customer c order by c.id")
+    List<CustomerDTO> findAllProjectedBy(Pageable pageable);
+
+    @Query("select new org.example.springbootbank.dtos.CustomerDTO(c.id, c.name, c.email) from Customer c where c.id > :after order by c.id")
+    List<CustomerDTO> findProjectedAfter(@Param("after") Long after, Pageable pageable);
 }
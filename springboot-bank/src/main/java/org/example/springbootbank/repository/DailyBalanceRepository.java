@@ -0,0 +1,27 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.DailyBalance;
+import org.example.springbootbank.entities.DailyBalanceId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyBalanceRepository extends JpaRepository<DailyBalance, DailyBalanceId> {
+    @Query("select d from DailyBalance d where d.id.accountId in :accountIds and d.id.day in :days")
+    List<DailyBalance> findByAccountsAndDays(@Param("accountIds") Collection<String> accountIds,
+                                             @Param("days") Collection<LocalDate> days);
+
+    Optional<DailyBalance> findFirstById_AccountIdAndId_DayLessThanOrderById_DayDesc(String accountId, LocalDate day);
+
+    List<DailyBalance> findById_AccountIdAndId_DayBetweenOrderById_Day(String accountId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("delete from DailyBalance d where d.id.accountId in :accountIds")
+    int deleteByAccountIds(@Param("accountIds") Collection<String> accountIds);
+}
@@ -0,0 +1,9 @@
+package org.example.springbootbank.repository;
+
+import java.time.LocalDate;
+
+/**
+ * The operations of one account on one day, summed up by the database.
+ */
+public record DailyTurnover(String accountId, LocalDate day, long credits, long debits, long operationCount) {
+}
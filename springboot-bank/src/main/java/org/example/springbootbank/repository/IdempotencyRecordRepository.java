@@ -0,0 +1,23 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Date before);
+
+    /** Completes the key without a response, for when the response itself cannot be stored. */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.completed = true, r.response = null where r.id = :id")
+    int markCompleted(@Param("id") String id);
+}
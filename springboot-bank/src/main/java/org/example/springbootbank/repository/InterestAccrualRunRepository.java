@@ -0,0 +1,32 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.InterestAccrualRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+public interface InterestAccrualRunRepository extends JpaRepository<InterestAccrualRun, LocalDate> {
+    List<InterestAccrualRun> findByCompletedAtIsNull();
+
+    /** Called in the transaction of the chunk it counts. */
+    @Transactional
+    @Modifying
+    @Query("update InterestAccrualRun r set r.accounts = r.accounts + :accounts, r.operations = r.operations + :operations where r.period = :period")
+    int addProgress(@Param("period") LocalDate period, @Param("accounts") long accounts, @Param("operations") long operations);
+
+    @Transactional
+    @Modifying
+    @Query("update InterestAccrualRun r set r.checkpoint = :checkpoint where r.period = :period")
+    int advance(@Param("period") LocalDate period, @Param("checkpoint") String checkpoint);
+
+    @Transactional
+    @Modifying
+    @Query("update InterestAccrualRun r set r.completedAt = :completedAt where r.period = :period")
+    int complete(@Param("period") LocalDate period, @Param("completedAt") Date completedAt);
+}
@@ -0,0 +1,6 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.OperationType;
+
+public record LedgerEntry(String accountId, OperationType type, long amount) {
+}
@@ -0,0 +1,12 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.OperationType;
+
+/**
+ * The operations of one type in one time bucket, summed up by the database. The bucket is given by
+ * its first day; {@code month} and {@code day} are 1 for the coarser buckets.
+ * Amounts are in minor units of {@code currency}.
+ */
+public record OperationAggregate(OperationType type, int year, int month, int day, String currency,
+                                 long operationCount, long total, long minAmount, long maxAmount) {
+}
@@ -0,0 +1,13 @@
+package org.example.springbootbank.repository;
+
+import org.example.springbootbank.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    @Query("select e from OutboxEvent e order by e.id")
+    List<OutboxEvent> findOldest(Pageable pageable);
+}
@@ -0,0 +1,100 @@
+package org.example.springbootbank.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the tokens the delegate has already verified, so a client presenting the same token
+ * for its whole lifetime pays for the parse, MAC check and claims conversion once.
+ * Entries are keyed by the SHA-256 of the token (the cache never holds usable bearer tokens),
+ * bounded in number and dropped when the token expires; tokens without an expiry and tokens the
+ * delegate rejects are never cached.
+ * Publishes the Caffeine statistics under {@code cache=jwt}, the decode time split by
+ * {@code result=hit|miss}, and {@code bank.jwt.cache.saved}, the decode time hits have avoided.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+    private final JwtDecoder delegate;
+    private final Cache<ByteBuffer, Jwt> cache;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+
+    public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt");
+        this.hitTimer = Timer.builder("bank.jwt.decode").tag("result", "hit").register(meterRegistry);
+        this.missTimer = Timer.builder("bank.jwt.decode").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("bank.jwt.cache.saved", this, CachingJwtDecoder::savedSeconds)
+                .baseUnit("seconds")
+                .description("Decode time avoided by cache hits")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        ByteBuffer key = ByteBuffer.wrap(sha256(token));
+        Jwt jwt = cache.getIfPresent(key);
+        if (jwt != null) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return jwt;
+        }
+        jwt = delegate.decode(token);
+        if (jwt.getExpiresAt() != null) {
+            cache.put(key, jwt);
+        }
+        missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return jwt;
+    }
+
+    private double savedSeconds() {
+        double perHit = missTimer.mean(TimeUnit.SECONDS) - hitTimer.mean(TimeUnit.SECONDS);
+        return Math.max(0, perHit) * hitTimer.count();
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Keeps an entry exactly as long as its token is valid. */
+    private static class TokenExpiry implements Expiry<ByteBuffer, Jwt> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt jwt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), jwt.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.springbootbank.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+
+import java.security.Key;
+import java.util.Set;
+
+/**
+ * Hands Nimbus the same {@link MACVerifier} for every token instead of building one per request;
+ * the decoder only ever selects the one shared secret, so the key argument can be ignored.
+ */
+class PrebuiltMacVerifierFactory implements JWSVerifierFactory {
+    private final MACVerifier macVerifier;
+
+    PrebuiltMacVerifierFactory(byte[] secret) throws JOSEException {
+        this.macVerifier = new MACVerifier(secret);
+    }
+
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) {
+        return macVerifier;
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return macVerifier.supportedJWSAlgorithms();
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return macVerifier.getJCAContext();
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.springbootbank.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory store of the opaque refresh tokens handed out by {@link SecurityController}.
+ * A refresh token is single use: {@link #rotate} consumes it and returns its successor, which belongs
+ * to the same session (family) and expires with it, {@code bank.security.refresh-token.ttl} after the
+ * login. Presenting a consumed token again means it leaked, so the whole family is revoked.
+ * Only SHA-256 hashes of the tokens are kept, and checking one is a hash and a map lookup.
+ * Revoking a family drops all of its tokens, so it stays revoked even once the revocation itself
+ * has been evicted.
+ */
+@Component
+public class RefreshTokenStore {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Duration ttl;
+    private final Cache<ByteBuffer, RefreshToken> tokens;
+    private final Cache<String, Boolean> revokedFamilies;
+    /** Hashes of the tokens held per family, for revocation. */
+    private final ConcurrentMap<String, Set<ByteBuffer>> familyTokens = new ConcurrentHashMap<>();
+
+    public RefreshTokenStore(@Value("${bank.security.refresh-token.ttl:8h}") Duration ttl,
+                             @Value("${bank.security.refresh-token.maximum-size:100000}") long maximumSize) {
+        this.ttl = ttl;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .evictionListener((ByteBuffer key, RefreshToken token, RemovalCause cause) -> forget(key, token))
+                .build();
+        this.revokedFamilies = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /** Starts a new session for the user and returns its first refresh token. */
+    public String issue(String username) {
+        return issue(username, UUID.randomUUID().toString(), Instant.now().plus(ttl));
+    }
+
+    /** Consumes the refresh token and returns the user it was issued to along with its successor. */
+    public Rotation rotate(String refreshToken) {
+        ByteBuffer key = hash(refreshToken);
+        RefreshToken current = tokens.getIfPresent(key);
+        if (current == null || !current.expiresAt().isAfter(Instant.now())
+                || revokedFamilies.getIfPresent(current.family()) != null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        if (current.used() || !tokens.asMap().replace(key, current, current.markUsed())) {
+            // a consumed token came back: someone else holds a copy, end the session for both
+            revokeFamily(current.family());
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        return new Rotation(current.username(), issue(current.username(), current.family(), current.expiresAt()));
+    }
+
+    /** Ends the session the refresh token belongs to; unknown tokens are ignored. */
+    public void revoke(String refreshToken) {
+        RefreshToken current = tokens.getIfPresent(hash(refreshToken));
+        if (current != null) {
+            revokeFamily(current.family());
+        }
+    }
+
+    private void revokeFamily(String family) {
+        revokedFamilies.put(family, Boolean.TRUE);
+        Set<ByteBuffer> keys = familyTokens.remove(family);
+        if (keys != null) {
+            tokens.invalidateAll(keys);
+        }
+    }
+
+    private String issue(String username, String family, Instant expiresAt) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = ENCODER.encodeToString(bytes);
+        ByteBuffer key = hash(refreshToken);
+        familyTokens.compute(family, (f, keys) -> {
+            Set<ByteBuffer> held = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            held.add(key);
+            return held;
+        });
+        tokens.put(key, new RefreshToken(username, family, expiresAt, false));
+        if (revokedFamilies.getIfPresent(family) != null) {
+            // revoked while the successor was being issued
+            revokeFamily(family);
+        }
+        return refreshToken;
+    }
+
+    /** Drops an expired or evicted token from its family. */
+    private void forget(ByteBuffer key, RefreshToken token) {
+        familyTokens.computeIfPresent(token.family(), (family, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static ByteBuffer hash(String refreshToken) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Rotation(String username, String refreshToken) {
+    }
+
+    private record RefreshToken(String username, String family, Instant expiresAt, boolean used) {
+        RefreshToken markUsed() {
+            return new RefreshToken(username, family, expiresAt, true);
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<ByteBuffer, RefreshToken> {
+        @Override
+        public long expireAfterCreate(ByteBuffer key, RefreshToken token, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, RefreshToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, RefreshToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
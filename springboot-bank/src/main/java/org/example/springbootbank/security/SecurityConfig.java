@@ -1,7 +1,10 @@
 package org.example.springbootbank.security;
 
 
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,6 +25,8 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -55,14 +60,24 @@ public class SecurityConfig {
                 .csrf(csrf->csrf.disable())
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(ar->ar
+                        // streamed responses complete in an async dispatch of a request already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/auth/login/**","/refreshToken/**","/swagger-ui**",
                                 "/swagger-ui/**","/v3/**", "/v1/**").permitAll()
                         .anyRequest().authenticated())
-                .oauth2ResourceServer(oa->oa.jwt(Customizer.withDefaults()))
+                .oauth2ResourceServer(oa->oa
+                        .jwt(Customizer.withDefaults())
+                        .bearerTokenResolver(bearerTokenResolver()))
                 .httpBasic(Customizer.withDefaults())
                 .build();
     }
 
+    /** An expired access token sent along with a refresh request must not get it rejected. */
+    private BearerTokenResolver bearerTokenResolver(){
+        DefaultBearerTokenResolver defaultBearerTokenResolver = new DefaultBearerTokenResolver();
+        return request -> request.getServletPath().startsWith("/refreshToken") ? null : defaultBearerTokenResolver.resolve(request);
+    }
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -71,10 +86,21 @@ public class SecurityConfig {
         return new NimbusJwtEncoder(new ImmutableSecret<>(secretKey.getBytes()));
     }
 
+    @Value("${bank.security.jwt-cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
     @Bean
-    public JwtDecoder jwtDecoder(){
+    public JwtDecoder jwtDecoder(MeterRegistry meterRegistry) throws JOSEException {
         SecretKeySpec secretKeySpec = new SecretKeySpec(secretKey.getBytes(), "RSA");
-        return NimbusJwtDecoder.withSecretKey(secretKeySpec).macAlgorithm(MacAlgorithm.HS512).build();
+        PrebuiltMacVerifierFactory verifierFactory = new PrebuiltMacVerifierFactory(secretKey.getBytes());
+        JwtDecoder jwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
+                .macAlgorithm(MacAlgorithm.HS512)
+                .jwtProcessorCustomizer(processor -> processor.setJWSVerifierFactory(verifierFactory))
+                .build();
+        if (jwtCacheMaximumSize <= 0) {
+            return jwtDecoder;
+        }
+        return new CachingJwtDecoder(jwtDecoder, jwtCacheMaximumSize, meterRegistry);
     }
 
     @Bean
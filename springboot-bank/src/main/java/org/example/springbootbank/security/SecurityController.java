@@ -1,24 +1,26 @@
 package org.example.springbootbank.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
-@RequestMapping("/auth")
 public class SecurityController {
 
     @Autowired
@@ -27,18 +29,50 @@ public class SecurityController {
     @Autowired
     private JwtEncoder jwtEncoder;
 
-    @GetMapping("/profile")
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private RefreshTokenStore refreshTokenStore;
+
+    @GetMapping("/auth/profile")
     public Authentication authentication(Authentication authentication) {
         return authentication;
     }
 
-    @PostMapping("/login")
+    @PostMapping("/auth/login")
     public Map<String, String> login(@RequestParam String username, @RequestParam String password){
         Authentication authentication= authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(username,password)
         );
+        return Map.of("access-token",accessToken(username,authentication.getAuthorities()),
+                "refresh-token",refreshTokenStore.issue(username));
+    }
+
+    /**
+     * Trades a refresh token for a new access token and the next refresh token, without a password check.
+     * The user is re-read so that a removed user, or a change of authorities, takes effect at the next refresh.
+     */
+    @PostMapping("/refreshToken")
+    public Map<String, String> refreshToken(@RequestParam String refreshToken){
+        RefreshTokenStore.Rotation rotation=refreshTokenStore.rotate(refreshToken);
+        UserDetails userDetails=userDetailsService.loadUserByUsername(rotation.username());
+        if (!userDetails.isEnabled() || !userDetails.isAccountNonLocked()) {
+            refreshTokenStore.revoke(rotation.refreshToken());
+            throw new DisabledException("User is disabled or locked");
+        }
+        return Map.of("access-token",accessToken(rotation.username(),userDetails.getAuthorities()),
+                "refresh-token",rotation.refreshToken());
+    }
+
+    @PostMapping("/refreshToken/revoke")
+    public void revokeRefreshToken(@RequestParam String refreshToken){
+        refreshTokenStore.revoke(refreshToken);
+    }
+
+    private String accessToken(String username, Collection<? extends GrantedAuthority> authorities){
         Instant instant=Instant.now();
-        String scope=authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(" "));
+        String scope=authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(" "));
         JwtClaimsSet jwtClaimsSet=JwtClaimsSet.builder()
                 .issuedAt(instant)
                 .expiresAt(instant.plus(10, ChronoUnit.MINUTES))
@@ -50,7 +84,6 @@ public class SecurityController {
                         JwsHeader.with(MacAlgorithm.HS512).build(),
                         jwtClaimsSet
                 );
-        String jwt=jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
-        return Map.of("access-token",jwt);
+        return jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package org.example.springbootbank.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.archive.ArchiveView;
+import org.example.springbootbank.archive.ArchivedOperation;
+import org.example.springbootbank.archive.OperationArchive;
+import org.example.springbootbank.datasource.ReplicaRoutingDataSource;
+import org.example.springbootbank.dtos.ArchiveReportDTO;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.ArchivableOperation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Moves the operations of the months older than {@code bank.archive.age} out of the table into the
+ * {@link OperationArchive}, oldest month first, so the table and its indexes only hold recent history.
+ * A month's segments are published before any of its rows is deleted, and the deletion waits two
+ * refresh intervals of the archive, so every node reads the month from the archive by then. Rows go
+ * in id-keyset chunks of {@code bank.archive.delete-batch-size}, one transaction each, and only those
+ * up to the highest id the segments hold; a run also deletes what an interrupted one left behind.
+ * Runs on {@code bank.archive.cron} and on demand; one run at a time, on one node.
+ */
+@Service
+@Slf4j
+public class ArchivalService {
+    private final AccountOperationRepository accountOperationRepository;
+    private final OperationArchive operationArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final Period age;
+    private final int deleteBatchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ArchivalService(AccountOperationRepository accountOperationRepository,
+                           OperationArchive operationArchive,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bank.archive.age:P90D}") Period age,
+                           @Value("${bank.archive.delete-batch-size:1000}") int deleteBatchSize) {
+        this.accountOperationRepository = accountOperationRepository;
+        this.operationArchive = operationArchive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.age = age;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    @Scheduled(cron = "${bank.archive.cron:-}")
+    public void scheduledArchive() throws IOException, InterruptedException {
+        archive();
+    }
+
+    /** Archives every complete month dated before today minus {@code bank.archive.age}. */
+    public ArchiveReportDTO archive() throws IOException, InterruptedException {
+        return archiveBefore(YearMonth.from(LocalDate.now().minus(age)));
+    }
+
+    /** Archives the months before {@code until}, that one excluded. */
+    public ArchiveReportDTO archiveBefore(YearMonth until) throws IOException, InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An archival is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            ArchiveReportDTO report = new ArchiveReportDTO();
+            report.setStartedAt(new Date());
+            report.setMonths(new ArrayList<>());
+            ArchiveView view = operationArchive.view();
+            YearMonth month = nextMonth(view);
+            while (month != null && month.isBefore(until)) {
+                YearMonth archiving = month;
+                ArchiveView.ArchivedMonth archived = operationArchive.archive(month, sink -> write(archiving, sink));
+                log.info("Archived {} operations of {}", archived.operations(), month);
+                report.getMonths().add(month);
+                report.setOperations(report.getOperations() + archived.operations());
+                month = month.plusMonths(1);
+            }
+            if (!report.getMonths().isEmpty()) {
+                // until then a node may still read these months from the table
+                Thread.sleep(operationArchive.refreshInterval().multipliedBy(2).toMillis());
+                view = operationArchive.view();
+            }
+            report.setDeletedRows(deleteArchived(view));
+            report.setHorizon(view.horizon());
+            report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Archival done in {} ms: {} months, {} operations, {} rows deleted, horizon {}",
+                    report.getElapsedMillis(), report.getMonths().size(), report.getOperations(), report.getDeletedRows(), report.getHorizon());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** The month after the archived ones, or that of the oldest operation; null when there is nothing at all. */
+    private YearMonth nextMonth(ArchiveView view) {
+        if (!view.isEmpty()) {
+            return view.months().get(view.months().size() - 1).month().plusMonths(1);
+        }
+        Date oldest = ReplicaRoutingDataSource.onPrimary(accountOperationRepository::findOldestDate);
+        return oldest == null ? null : YearMonth.from(DailyBalanceRecorder.dayOf(oldest));
+    }
+
+    private void write(YearMonth month, OperationArchive.Sink sink) {
+        Date from = DailyBalanceRecorder.startOf(month.atDay(1));
+        Date to = DailyBalanceRecorder.startOf(month.plusMonths(1).atDay(1));
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ArchivableOperation> operations = accountOperationRepository.streamToArchive(from, to)) {
+                operations.forEach(operation -> {
+                    try {
+                        sink.add(operation.accountId(), operation.currency(), new ArchivedOperation(operation.id(),
+                                operation.date(), operation.type(), operation.amount(), operation.description()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        });
+    }
+
+    private long deleteArchived(ArchiveView view) {
+        Date oldest = ReplicaRoutingDataSource.onPrimary(accountOperationRepository::findOldestDate);
+        long deleted = 0;
+        for (ArchiveView.ArchivedMonth month : view.months()) {
+            if (oldest == null || !oldest.before(month.end())) {
+                continue;
+            }
+            long after = 0;
+            List<Long> ids;
+            do {
+                long from = after;
+                ids = ReplicaRoutingDataSource.onPrimary(() -> accountOperationRepository.findArchivedIds(
+                        from, month.maxOperationId(), month.start(), month.end(), PageRequest.of(0, deleteBatchSize)));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                accountOperationRepository.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+                after = ids.get(ids.size() - 1);
+            } while (ids.size() == deleteBatchSize);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+
+@FunctionalInterface
+public interface BalanceMutation<T> {
+    T apply() throws BankAccountNotFoundException, BalanceNotSufficientException;
+}
@@ -0,0 +1,160 @@
+package org.example.springbootbank.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance mutations per account.
+ * Accounts are mapped onto a fixed array of locks (lock striping) and the locks of a
+ * multi-account mutation are always taken in stripe order, so two opposite transfers
+ * can never deadlock. Locks are held until the surrounding transaction completes.
+ * The {@code @Version} column on BankAccount covers writers this JVM does not see
+ * (other nodes): a conflicting commit is retried in a fresh transaction. With group commit the
+ * balance is checked and written in two transactions, so debits carry the version they were checked
+ * at and the {@link LedgerWriter} fails the commit when the account has moved since.
+ * With group commit enabled the mutation itself runs in a transaction that only validates and
+ * collects its postings, which are handed to the {@link LedgerWriter} once that transaction has
+ * released its connection; the batch commit is awaited while the locks are still held. Waiting
+ * with a connection checked out would let a burst of mutations drain the pool and starve the
+ * writer thread. That transaction is not marked read-only: read-only ones may be served by a
+ * lagging replica, and a balance check must read the primary.
+ */
+@Component
+@Slf4j
+public class BalanceMutationEngine {
+    private final ReentrantLock[] stripes;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRetries;
+    private final LedgerWriter ledgerWriter;
+
+    public BalanceMutationEngine(PlatformTransactionManager transactionManager,
+                                 LedgerWriter ledgerWriter,
+                                 @Value("${bank.locks.stripes:1024}") int stripeCount,
+                                 @Value("${bank.locks.max-retries:5}") int maxRetries) {
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRetries = maxRetries;
+        this.ledgerWriter = ledgerWriter;
+    }
+
+    public <T> T execute(BalanceMutation<T> mutation, String... accountIds) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        int[] order = lockOrder(accountIds);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The caller owns the transaction: keep the locks until it completes, no retry here.
+            lock(order);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(order);
+                }
+            });
+            return mutation.apply();
+        }
+        for (int attempt = 1; ; attempt++) {
+            lock(order);
+            try {
+                if (!ledgerWriter.isGroupCommit()) {
+                    return executeInTransaction(mutation);
+                }
+                T result;
+                List<LedgerWriter.Posting> postings;
+                ledgerWriter.defer();
+                try {
+                    result = executeInTransaction(mutation);
+                } finally {
+                    postings = ledgerWriter.takeDeferred();
+                }
+                ledgerWriter.append(postings);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                log.debug("Concurrent update on accounts {}, retrying (attempt {})", Arrays.toString(accountIds), attempt);
+            } finally {
+                unlock(order);
+            }
+        }
+    }
+
+    /**
+     * Runs the action, outside of any transaction, while holding the locks of the accounts:
+     * no mutation of these accounts can commit until it returns.
+     */
+    public <T> T whileLocked(Supplier<T> action, String... accountIds) {
+        int[] order = lockOrder(accountIds);
+        lock(order);
+        try {
+            return action.get();
+        } finally {
+            unlock(order);
+        }
+    }
+
+    private <T> T executeInTransaction(BalanceMutation<T> mutation) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return mutation.apply();
+                } catch (BankAccountNotFoundException | BalanceNotSufficientException e) {
+                    status.setRollbackOnly();
+                    throw new MutationRejectedException(e);
+                }
+            });
+        } catch (MutationRejectedException e) {
+            if (e.getCause() instanceof BankAccountNotFoundException notFound) {
+                throw notFound;
+            }
+            throw (BalanceNotSufficientException) e.getCause();
+        }
+    }
+
+    /** Distinct stripe indexes in ascending order, the global lock order. */
+    int[] lockOrder(String... accountIds) {
+        return Arrays.stream(accountIds)
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private int stripeOf(String accountId) {
+        int h = accountId.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, stripes.length);
+    }
+
+    private void lock(int[] order) {
+        for (int stripe : order) {
+            stripes[stripe].lock();
+        }
+    }
+
+    private void unlock(int[] order) {
+        for (int i = order.length - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+
+    private static class MutationRejectedException extends RuntimeException {
+        MutationRejectedException(Exception cause) {
+            super(cause);
+        }
+    }
+}
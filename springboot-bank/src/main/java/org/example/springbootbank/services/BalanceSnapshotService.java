@@ -0,0 +1,216 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.archive.ArchiveView;
+import org.example.springbootbank.archive.ArchivedOperation;
+import org.example.springbootbank.archive.OperationArchive;
+import org.example.springbootbank.dtos.BalanceAtDTO;
+import org.example.springbootbank.dtos.DailyBalanceDTO;
+import org.example.springbootbank.dtos.SnapshotRebuildDTO;
+import org.example.springbootbank.entities.DailyBalance;
+import org.example.springbootbank.entities.DailyBalanceId;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.example.springbootbank.repository.AccountBalance;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.example.springbootbank.repository.DailyBalanceRepository;
+import org.example.springbootbank.repository.DailyTurnover;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Point-in-time balances from the {@link DailyBalance} snapshots, and the job rebuilding them from the ledger.
+ * A lookup takes the last snapshot before the requested day and only sums the operations after it.
+ * The rebuild walks the accounts in id order and hands partitions to a thread pool; each partition is
+ * rebuilt in its own transaction while holding the partition's account locks, so no posting can
+ * commit in between, and its days are derived backwards from the current balance (which, unlike
+ * the ledger, includes the opening balance). Both add the archived operations to those of the table.
+ */
+@Service
+@Slf4j
+public class BalanceSnapshotService {
+    private final BankAccountRepository bankAccountRepository;
+    private final AccountOperationRepository accountOperationRepository;
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final BalanceMutationEngine balanceMutationEngine;
+    private final OperationArchive operationArchive;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService backfillExecutor;
+    private final int backfillThreads;
+    private final int partitionSize;
+
+    public BalanceSnapshotService(BankAccountRepository bankAccountRepository,
+                                  AccountOperationRepository accountOperationRepository,
+                                  DailyBalanceRepository dailyBalanceRepository,
+                                  BalanceMutationEngine balanceMutationEngine,
+                                  OperationArchive operationArchive,
+                                  EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.snapshots.backfill-threads:0}") int backfillThreads,
+                                  @Value("${bank.snapshots.partition-size:100}") int partitionSize) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.accountOperationRepository = accountOperationRepository;
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.balanceMutationEngine = balanceMutationEngine;
+        this.operationArchive = operationArchive;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillThreads = backfillThreads > 0 ? backfillThreads : Runtime.getRuntime().availableProcessors();
+        this.backfillExecutor = Executors.newFixedThreadPool(this.backfillThreads);
+        this.partitionSize = partitionSize;
+    }
+
+    public BalanceAtDTO balanceAt(String accountId, Instant at) throws BankAccountNotFoundException {
+        List<AccountBalance> current = bankAccountRepository.findBalances(List.of(accountId));
+        if (current.isEmpty()) {
+            throw new BankAccountNotFoundException("Bank account not found");
+        }
+        Date after = Date.from(at.plusMillis(1));
+        LocalDate day = DailyBalanceRecorder.dayOf(Date.from(at));
+        ArchiveView archive = operationArchive.view();
+        long balance = dailyBalanceRepository.findFirstById_AccountIdAndId_DayLessThanOrderById_DayDesc(accountId, day)
+                .map(snapshot -> Money.add(snapshot.getClosingBalance(), netBetween(archive, accountId,
+                        DailyBalanceRecorder.startOf(snapshot.getId().getDay().plusDays(1)), after)))
+                // nothing before that day: undo the operations made since
+                .orElseGet(() -> Money.subtract(current.get(0).balance(), Money.add(
+                        archive.net(accountId, after, archive.horizon()),
+                        accountOperationRepository.netSince(accountId, archive.clip(after)))));
+        return new BalanceAtDTO(accountId, Date.from(at), Money.toMajor(balance, current.get(0).currency()));
+    }
+
+    private long netBetween(ArchiveView archive, String accountId, Date from, Date to) {
+        return Money.add(archive.net(accountId, from, to), accountOperationRepository.netBetween(accountId, archive.clip(from), to));
+    }
+
+    public List<DailyBalanceDTO> dailyBalances(String accountId, LocalDate from, LocalDate to) {
+        List<AccountBalance> account = bankAccountRepository.findBalances(List.of(accountId));
+        String currency = account.isEmpty() ? null : account.get(0).currency();
+        return dailyBalanceRepository.findById_AccountIdAndId_DayBetweenOrderById_Day(accountId, from, to).stream()
+                .map(dailyBalance -> new DailyBalanceDTO(accountId, dailyBalance.getId().getDay(),
+                        Money.toMajor(dailyBalance.getClosingBalance(), currency),
+                        Money.toMajor(dailyBalance.getCredits(), currency),
+                        Money.toMajor(dailyBalance.getDebits(), currency),
+                        dailyBalance.getOperationCount()))
+                .collect(Collectors.toList());
+    }
+
+    /** Recomputes every snapshot from the ledger; only one partition per thread is in flight at a time. */
+    public SnapshotRebuildDTO rebuild() throws InterruptedException {
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(backfillThreads * 2);
+        List<Future<int[]>> futures = new ArrayList<>();
+        String after = "";
+        List<String> accountIds;
+        do {
+            accountIds = bankAccountRepository.findIdsAfter(after, PageRequest.of(0, partitionSize));
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            after = accountIds.get(accountIds.size() - 1);
+            List<String> partition = accountIds;
+            inFlight.acquire();
+            futures.add(backfillExecutor.submit(() -> {
+                try {
+                    return balanceMutationEngine.whileLocked(() -> transactionTemplate.execute(status -> rebuildPartition(partition)),
+                            partition.toArray(String[]::new));
+                } finally {
+                    inFlight.release();
+                }
+            }));
+        } while (accountIds.size() == partitionSize);
+
+        int accounts = 0;
+        int rows = 0;
+        for (Future<int[]> future : futures) {
+            try {
+                int[] counts = future.get();
+                accounts += counts[0];
+                rows += counts[1];
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Snapshot rebuild failed", e.getCause());
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Rebuilt {} daily balances of {} accounts in {} ms", rows, accounts, millis);
+        return new SnapshotRebuildDTO(accounts, rows, millis);
+    }
+
+    private int[] rebuildPartition(List<String> accountIds) {
+        dailyBalanceRepository.deleteByAccountIds(accountIds);
+        ArchiveView archive = operationArchive.view();
+        Map<String, List<DailyTurnover>> turnovers = accountOperationRepository.dailyTurnover(accountIds, archive.horizon()).stream()
+                .collect(Collectors.groupingBy(DailyTurnover::accountId, HashMap::new, Collectors.toCollection(ArrayList::new)));
+        if (!archive.isEmpty()) {
+            // archived days all come before the table's
+            for (String accountId : accountIds) {
+                List<DailyTurnover> archived = archivedTurnover(archive, accountId);
+                if (!archived.isEmpty()) {
+                    turnovers.computeIfAbsent(accountId, id -> new ArrayList<>()).addAll(archived);
+                }
+            }
+        }
+        int rows = 0;
+        List<AccountBalance> balances = bankAccountRepository.findBalances(accountIds);
+        for (AccountBalance account : balances) {
+            List<DailyTurnover> days = turnovers.get(account.id());
+            if (days == null) {
+                continue;
+            }
+            days.sort(Comparator.comparing(DailyTurnover::day).reversed());
+            long closing = account.balance();
+            for (DailyTurnover turnover : days) {
+                entityManager.persist(new DailyBalance(new DailyBalanceId(account.id(), turnover.day()),
+                        closing, turnover.credits(), turnover.debits(), turnover.operationCount()));
+                closing = Money.subtract(closing, Money.subtract(turnover.credits(), turnover.debits()));
+                if (++rows % 1000 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return new int[]{balances.size(), rows};
+    }
+
+    private static List<DailyTurnover> archivedTurnover(ArchiveView archive, String accountId) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        for (ArchivedOperation operation : archive.operations(accountId)) {
+            // credits, debits, count
+            long[] day = days.computeIfAbsent(DailyBalanceRecorder.dayOf(operation.date()), d -> new long[3]);
+            int side = operation.type() == OperationType.CREDIT ? 0 : 1;
+            day[side] = Money.add(day[side], operation.amount());
+            day[2]++;
+        }
+        List<DailyTurnover> turnover = new ArrayList<>(days.size());
+        days.forEach((day, sums) -> turnover.add(new DailyTurnover(accountId, day, sums[0], sums[1], sums[2])));
+        return turnover;
+    }
+
+    @PreDestroy
+    public void stop() {
+        backfillExecutor.shutdownNow();
+    }
+}
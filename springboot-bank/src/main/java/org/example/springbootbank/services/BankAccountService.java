@@ -11,29 +11,44 @@ import org.example.springbootbank.exceptions.BalanceNotSufficientException;
 import org.example.springbootbank.exceptions.BankAccountNotFoundException;
 import org.example.springbootbank.exceptions.CustomerNotFoundException;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BankAccountService {
     CustomerDTO saveCustomer(CustomerDTO customerDTO);
     CurrentBankAccountDTO saveCurrentBankAccount(double initialBalance, double overDraft, Long customerId) throws CustomerNotFoundException;
     SavingBankAccountDTO saveSavingBankAccount(double initialBalance, double interestRate, Long customerId) throws CustomerNotFoundException;
     List<CustomerDTO> listCustomers();
+    List<CustomerDTO> listCustomers(int page, int size);
 
     BankAccountDTO getBankAccount(String accountId) throws BankAccountNotFoundException;
     void debit(String accountId, double amount, String description) throws BankAccountNotFoundException, BalanceNotSufficientException;
     void credit(String accountId, double amount, String description) throws BankAccountNotFoundException;
     void transfer(String accountIdSource, String accountIdDestination, double amount) throws BankAccountNotFoundException, BalanceNotSufficientException;
+    BulkTransferResultDTO bulkTransfer(List<TransferDTO> transfers, BulkTransferMode mode);
+    BalanceAtDTO getBalanceAt(String accountId, Instant at) throws BankAccountNotFoundException;
+    List<DailyBalanceDTO> getDailyBalances(String accountId, LocalDate from, LocalDate to);
+    List<StatementLineDTO> getStatement(String accountId, LocalDate from, LocalDate to, StatementBucket bucket);
 
     CustomerDTO getCustomer(Long customerId) throws CustomerNotFoundException;
 
     List<BankAccountDTO> bankAccountList();
+    List<BankAccountDTO> bankAccountList(int page, int size);
     CustomerDTO updateCustomer(CustomerDTO customerDTO);
 
     void deleteCustomer(Long customerId);
 
     List<AccountOperationDTO> getAccountHistory(String accountId) throws BankAccountNotFoundException;
 
+    void streamAccountHistory(String accountId, Consumer<AccountOperationDTO> consumer);
+
     AccountHistoryDTO getAccountHistory(String accountId, int page, int size) throws BankAccountNotFoundException;
 
+    AccountHistoryCursorDTO getAccountHistoryByCursor(String accountId, String cursor, int size, boolean withCount) throws BankAccountNotFoundException;
+
     List<CustomerDTO> searchCustomers(String keyword);
+
+    List<CustomerDTO> searchCustomers(String keyword, int page, int size);
 }
\ No newline at end of file
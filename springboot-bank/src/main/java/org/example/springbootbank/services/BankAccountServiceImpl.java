@@ -2,10 +2,14 @@ package org.example.springbootbank.services;
 
 
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.example.springbootbank.archive.ArchiveView;
+import org.example.springbootbank.archive.ArchivedOperation;
+import org.example.springbootbank.archive.OperationArchive;
+import org.example.springbootbank.datasource.ReplicaRoutingDataSource;
 import org.example.springbootbank.dtos.*;
 import org.example.springbootbank.entities.*;
 import org.example.springbootbank.exceptions.BalanceNotSufficientException;
@@ -15,14 +19,26 @@ import org.example.springbootbank.mappers.BankAccountMapperImpl;
 import org.example.springbootbank.repository.AccountOperationRepository;
 import org.example.springbootbank.repository.BankAccountRepository;
 import org.example.springbootbank.repository.CustomerRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -33,6 +49,16 @@ public class BankAccountServiceImpl implements BankAccountService{
     private BankAccountRepository bankAccountRepository;
     private AccountOperationRepository accountOperationRepository;
     private BankAccountMapperImpl bankAccountMapper;
+    private BalanceMutationEngine balanceMutationEngine;
+    private LedgerWriter ledgerWriter;
+    private EntityManager entityManager;
+    private CustomerSearchIndex customerSearchIndex;
+    private BulkTransferProcessor bulkTransferProcessor;
+    private BalanceSnapshotService balanceSnapshotService;
+    private StatementService statementService;
+    private PartitionedBalanceEngine partitionedBalanceEngine;
+    private OperationMetrics operationMetrics;
+    private OperationArchive operationArchive;
 
 
     @Override
@@ -40,7 +66,9 @@ public class BankAccountServiceImpl implements BankAccountService{
         log.info("Saving new customer");
         Customer customer = bankAccountMapper.fromCustomerDTO(customerDTO);
         Customer savedCustomer = customerRepository.save(customer);
-        return bankAccountMapper.fromCustomer(savedCustomer);
+        CustomerDTO savedCustomerDTO = bankAccountMapper.fromCustomer(savedCustomer);
+        customerSearchIndex.putAfterCommit(savedCustomerDTO);
+        return savedCustomerDTO;
     }
 
     @Override
@@ -51,7 +79,9 @@ public class BankAccountServiceImpl implements BankAccountService{
         }
         CurrentAccount currentAccount = new CurrentAccount();
         currentAccount.setId(UUID.randomUUID().toString());
-        currentAccount.setBalance(initialBalance);
+        currentAccount.setCurrency(Money.DEFAULT_CURRENCY);
+        currentAccount.setBalance(Money.toMinor(initialBalance, Money.DEFAULT_CURRENCY));
+        currentAccount.setOpeningBalance(currentAccount.getBalance());
         currentAccount.setCreatedAt(new Date());
         currentAccount.setCustomer(customer);
         currentAccount.setOverDraft(overDraft);
@@ -67,7 +97,9 @@ public class BankAccountServiceImpl implements BankAccountService{
         }
         SavingAccount savingAccount = new SavingAccount();
         savingAccount.setId(UUID.randomUUID().toString());
-        savingAccount.setBalance(initialBalance);
+        savingAccount.setCurrency(Money.DEFAULT_CURRENCY);
+        savingAccount.setBalance(Money.toMinor(initialBalance, Money.DEFAULT_CURRENCY));
+        savingAccount.setOpeningBalance(savingAccount.getBalance());
         savingAccount.setCreatedAt(new Date());
         savingAccount.setCustomer(customer);
         savingAccount.setInterestRate(interestRate);
@@ -78,124 +110,326 @@ public class BankAccountServiceImpl implements BankAccountService{
 
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "customers", key = "#customerId")
     public CustomerDTO getCustomer(Long customerId) throws CustomerNotFoundException {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
         return bankAccountMapper.fromCustomer(customer);
     }
     @Override
+    @Transactional(readOnly = true)
     public List<CustomerDTO> listCustomers() {
-        List<Customer> customers = customerRepository.findAll();
-        List<CustomerDTO> customerDTOS = customers.stream()
-                .map(customer -> bankAccountMapper.fromCustomer(customer))
-                .collect(Collectors.toList());
-        return customerDTOS;
+        return customerRepository.findAllProjectedBy(Pageable.unpaged());
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> listCustomers(int page, int size) {
+        return customerRepository.findAllProjectedBy(PageRequest.of(page, size));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "accounts", key = "#accountId")
     public BankAccountDTO getBankAccount(String accountId) throws BankAccountNotFoundException {
-        BankAccount bankAccount = bankAccountRepository.findById(accountId)
+        // cached until the next mutation evicts it: a lagging replica would pin a stale balance
+        BankAccount bankAccount = ReplicaRoutingDataSource.onPrimary(() -> bankAccountRepository.findById(accountId))
                 .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
         return bankAccountMapper.fromBankAccount(bankAccount);
     }
     @Override
+    @Transactional(readOnly = true)
     public List<BankAccountDTO> bankAccountList() {
-        List<BankAccount> bankAccounts = bankAccountRepository.findAll();
-        List<BankAccountDTO> bankAccountDTOS = bankAccounts.stream()
-                .map(bankAccount -> bankAccountMapper.fromBankAccount(bankAccount))
+        return bankAccountRepository.findAllProjectedBy(Pageable.unpaged()).stream()
+                .map(bankAccountMapper::fromBankAccountProjection)
+                .collect(Collectors.toList());
+    }
+    @Override
+    @Transactional(readOnly = true)
+    public List<BankAccountDTO> bankAccountList(int page, int size) {
+        return bankAccountRepository.findAllProjectedBy(PageRequest.of(page, size)).stream()
+                .map(bankAccountMapper::fromBankAccountProjection)
                 .collect(Collectors.toList());
-        return bankAccountDTOS;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @CacheEvict(cacheNames = "accounts", key = "#accountId")
     public void debit(String accountId, double amount, String description) throws BankAccountNotFoundException, BalanceNotSufficientException {
-        BankAccount bankAccount = bankAccountRepository.findById(accountId)
-                .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
-        if (bankAccount.getBalance() < amount) {
-            throw new BalanceNotSufficientException("Insufficient balance");
+        if (partitionedBalanceEngine.isEnabled()) {
+            operationMetrics.record("debit", () -> {
+                partitionedBalanceEngine.debit(accountId, amount, description);
+                return null;
+            });
+            return;
         }
-        AccountOperation accountOperation = new AccountOperation();
-        accountOperation.setDate(new Date());
-        accountOperation.setAmount(amount);
-        accountOperation.setType(OperationType.DEBIT);
-        accountOperation.setDescription(description);
-        accountOperation.setBankAccount(bankAccount);
-        accountOperationRepository.save(accountOperation);
-        bankAccount.setBalance(bankAccount.getBalance() - amount);
-        log.info("Debiting account: " + accountId + " with amount: " + amount);
-        bankAccountRepository.save(bankAccount);
+        operationMetrics.record("debit", () -> balanceMutationEngine.execute(() -> {
+            applyDebit(accountId, amount, description);
+            return null;
+        }, accountId));
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @CacheEvict(cacheNames = "accounts", key = "#accountId")
     public void credit(String accountId, double amount, String description) throws BankAccountNotFoundException {
-        BankAccount bankAccount = bankAccountRepository.findById(accountId)
-                .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
-        AccountOperation accountOperation = new AccountOperation();
-        accountOperation.setDate(new Date());
-        accountOperation.setAmount(amount);
-        accountOperation.setType(OperationType.CREDIT);
-        accountOperation.setDescription(description);
-        accountOperation.setBankAccount(bankAccount);
-        accountOperationRepository.save(accountOperation);
-        bankAccount.setBalance(bankAccount.getBalance() + amount);
-        log.info("Crediting account: " + accountId + " with amount: " + amount);
-        bankAccountRepository.save(bankAccount);
+        try {
+            if (partitionedBalanceEngine.isEnabled()) {
+                operationMetrics.record("credit", () -> {
+                    partitionedBalanceEngine.credit(accountId, amount, description);
+                    return null;
+                });
+                return;
+            }
+            operationMetrics.record("credit", () -> balanceMutationEngine.execute(() -> {
+                applyCredit(accountId, amount, description);
+                return null;
+            }, accountId));
+        } catch (BalanceNotSufficientException e) {
+            // a credit never checks the balance
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "accounts", key = "#accountIdSource"),
+            @CacheEvict(cacheNames = "accounts", key = "#accountIdDestination")})
     public void transfer(String accountIdSource, String accountIdDestination, double amount) throws BankAccountNotFoundException, BalanceNotSufficientException {
-        debit(accountIdSource, amount, "Transfer to "+accountIdDestination);
-        credit(accountIdDestination,amount,"transfer from "+accountIdSource );
-        log.info("Transferring amount: " + amount + " from account: " + accountIdSource + " to account: " + accountIdDestination);
+        if (partitionedBalanceEngine.isEnabled()) {
+            operationMetrics.record("transfer", () -> {
+                partitionedBalanceEngine.transfer(accountIdSource, accountIdDestination, amount);
+                return null;
+            });
+            log.debug("Transferred {} from account {} to account {}", amount, accountIdSource, accountIdDestination);
+            return;
+        }
+        operationMetrics.record("transfer", () -> balanceMutationEngine.execute(() -> {
+            BankAccount source = findAccount(accountIdSource);
+            long minorAmount = Money.toMinor(amount, source.getCurrency());
+            checkBalance(source, minorAmount);
+            if (!findCurrency(accountIdDestination).equals(Money.currency(source.getCurrency()))) {
+                throw new IllegalArgumentException("Transfers between accounts in different currencies are not supported");
+            }
+            ledgerWriter.append(List.of(
+                    LedgerWriter.Posting.debit(accountIdSource, minorAmount, "Transfer to "+accountIdDestination, source.getVersion()),
+                    LedgerWriter.Posting.credit(accountIdDestination, minorAmount, "transfer from "+accountIdSource)));
+            return null;
+        }, accountIdSource, accountIdDestination));
+        log.debug("Transferred {} from account {} to account {}", amount, accountIdSource, accountIdDestination);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkTransferResultDTO bulkTransfer(List<TransferDTO> transfers, BulkTransferMode mode) {
+        return bulkTransferProcessor.process(transfers, mode);
+    }
+
+    private void applyDebit(String accountId, double amount, String description) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        BankAccount bankAccount = findAccount(accountId);
+        long minorAmount = Money.toMinor(amount, bankAccount.getCurrency());
+        checkBalance(bankAccount, minorAmount);
+        log.debug("Debiting account {} with {}", accountId, amount);
+        ledgerWriter.append(List.of(LedgerWriter.Posting.debit(accountId, minorAmount, description, bankAccount.getVersion())));
+    }
+
+    private void applyCredit(String accountId, double amount, String description) throws BankAccountNotFoundException {
+        long minorAmount = Money.toMinor(amount, findCurrency(accountId));
+        log.debug("Crediting account {} with {}", accountId, amount);
+        ledgerWriter.append(List.of(LedgerWriter.Posting.credit(accountId, minorAmount, description)));
+    }
+
+    private BankAccount findAccount(String accountId) throws BankAccountNotFoundException {
+        return bankAccountRepository.findById(accountId)
+                .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
+    }
+
+    private static void checkBalance(BankAccount bankAccount, long amount) throws BalanceNotSufficientException {
+        if (bankAccount.getBalance() < amount) {
+            throw new BalanceNotSufficientException("Insufficient balance");
+        }
+    }
+
+    private String findCurrency(String accountId) throws BankAccountNotFoundException {
+        return bankAccountRepository.findCurrency(accountId)
+                .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "customers", key = "#customerDTO.id"),
+            @CacheEvict(cacheNames = "accounts", allEntries = true)})
     public CustomerDTO updateCustomer(CustomerDTO customerDTO) {
         log.info("Saving new customer");
         Customer customer = bankAccountMapper.fromCustomerDTO(customerDTO);
         Customer savedCustomer = customerRepository.save(customer);
-        return bankAccountMapper.fromCustomer(savedCustomer);
+        CustomerDTO savedCustomerDTO = bankAccountMapper.fromCustomer(savedCustomer);
+        customerSearchIndex.putAfterCommit(savedCustomerDTO);
+        return savedCustomerDTO;
     }
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "customers", key = "#customerId"),
+            @CacheEvict(cacheNames = "accounts", allEntries = true)})
     public void deleteCustomer(Long customerId) {
         customerRepository.deleteById(customerId);
+        customerSearchIndex.removeAfterCommit(customerId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<AccountOperationDTO> getAccountHistory(String accountId) throws BankAccountNotFoundException {
-        List<AccountOperation> accountOperations= accountOperationRepository.findByBankAccount_Id(accountId);
-        List<AccountOperationDTO> accountOperationDTOS = accountOperations.stream()
-                .map(accountOperation -> bankAccountMapper.fromAccountOperation(accountOperation))
-                .collect(Collectors.toList());
-        return accountOperationDTOS;
+        return operationMetrics.recordQuery("getAccountHistory", () -> {
+            ArchiveView archive = operationArchive.view();
+            List<AccountOperationDTO> accountOperationDTOS = new ArrayList<>(archivedHistory(archive, accountId));
+            List<AccountOperation> accountOperations= accountOperationRepository.findByBankAccount_IdAndDateGreaterThanEqualOrderByDateAscIdAsc(accountId, archive.horizon());
+            accountOperations.stream()
+                    .map(accountOperation -> bankAccountMapper.fromAccountOperation(accountOperation))
+                    .forEach(accountOperationDTOS::add);
+            return accountOperationDTOS;
+        });
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAccountHistory(String accountId, Consumer<AccountOperationDTO> consumer) {
+        ArchiveView archive = operationArchive.view();
+        archivedHistory(archive, accountId).forEach(consumer);
+        try (Stream<AccountOperation> accountOperations = accountOperationRepository.streamByBankAccount_Id(accountId, archive.horizon())) {
+            accountOperations.forEach(accountOperation -> {
+                consumer.accept(bankAccountMapper.fromAccountOperation(accountOperation));
+                // keep the persistence context from growing with the history
+                entityManager.detach(accountOperation);
+            });
+        }
     }
     @Override
+    @Transactional(readOnly = true)
     public AccountHistoryDTO getAccountHistory(String accountId, int page, int size) throws BankAccountNotFoundException {
+        return operationMetrics.recordQuery("getAccountHistoryPage", () -> {
+            BankAccount bankAccount = bankAccountRepository.findById(accountId)
+                    .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
+
+            // newest first: the table's rows, then the archive's once they run out
+            ArchiveView archive = operationArchive.view();
+            Page<AccountOperation> accountOperations = accountOperationRepository.findByBankAccount_IdAndDateGreaterThanEqual(
+                    accountId, archive.horizon(), PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "date", "id")));
+            List<AccountOperationDTO> accountOperationDTOs = accountOperations.getContent().stream()
+                    .map(op -> bankAccountMapper.fromAccountOperation(op))
+                    .collect(Collectors.toList());
+            long archived = archive.count(accountId);
+            if (accountOperationDTOs.size() < size && archived > 0) {
+                long offset = Math.max(0, (long) page * size - accountOperations.getTotalElements());
+                String currency = archive.currency(accountId);
+                archive.newestFirst(accountId, offset, size - accountOperationDTOs.size())
+                        .forEach(op -> accountOperationDTOs.add(bankAccountMapper.fromArchivedOperation(op, currency)));
+            }
+
+            AccountHistoryDTO accountHistoryDTO = new AccountHistoryDTO();
+            accountHistoryDTO.setAccountId(accountId);
+            accountHistoryDTO.setBalance(Money.toMajor(bankAccount.getBalance(), bankAccount.getCurrency()));
+            accountHistoryDTO.setCurrentPage(page);
+            accountHistoryDTO.setPageSize(size);
+            accountHistoryDTO.setTotalPages((int) ((accountOperations.getTotalElements() + archived + size - 1) / size));
+            accountHistoryDTO.setAccountOperationDTOs(accountOperationDTOs);
+
+            return accountHistoryDTO;
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AccountHistoryCursorDTO getAccountHistoryByCursor(String accountId, String cursor, int size, boolean withCount) throws BankAccountNotFoundException {
         BankAccount bankAccount = bankAccountRepository.findById(accountId)
                 .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
 
-        Page<AccountOperation> accountOperations = accountOperationRepository.findByBankAccount_Id(accountId, PageRequest.of(page, size));
+        // one extra row tells whether there is a next page without a count query
+        PageRequest limit = PageRequest.of(0, size + 1);
+        ArchiveView archive = operationArchive.view();
+        OperationCursor position = cursor == null || cursor.isEmpty() ? null : OperationCursor.decode(cursor);
+        List<AccountOperation> accountOperations = position == null
+                ? accountOperationRepository.findByBankAccount_IdAndDateGreaterThanEqualOrderByDateDescIdDesc(accountId, archive.horizon(), limit)
+                : accountOperationRepository.findPageAfter(accountId, archive.horizon(), position.date(), position.id(), limit);
+        List<OperationCursor> positions = new ArrayList<>(size + 1);
+        List<AccountOperationDTO> accountOperationDTOs = new ArrayList<>(size + 1);
+        for (AccountOperation op : accountOperations) {
+            positions.add(new OperationCursor(op.getDate(), op.getId()));
+            accountOperationDTOs.add(bankAccountMapper.fromAccountOperation(op));
+        }
+        if (accountOperationDTOs.size() <= size && !archive.isEmpty()) {
+            // the table is exhausted, go on with the archive: everything it holds comes before the horizon
+            int missing = size + 1 - accountOperationDTOs.size();
+            String currency = archive.currency(accountId);
+            List<ArchivedOperation> archivedOperations = position == null
+                    ? archive.newestFirst(accountId, 0, missing)
+                    : archive.before(accountId, position.date(), position.id(), missing);
+            for (ArchivedOperation op : archivedOperations) {
+                positions.add(new OperationCursor(op.date(), op.id()));
+                accountOperationDTOs.add(bankAccountMapper.fromArchivedOperation(op, currency));
+            }
+        }
+        boolean hasMore = accountOperationDTOs.size() > size;
+        if (hasMore) {
+            accountOperationDTOs = accountOperationDTOs.subList(0, size);
+        }
+
+        AccountHistoryCursorDTO accountHistoryCursorDTO = new AccountHistoryCursorDTO();
+        accountHistoryCursorDTO.setAccountId(accountId);
+        accountHistoryCursorDTO.setBalance(Money.toMajor(bankAccount.getBalance(), bankAccount.getCurrency()));
+        accountHistoryCursorDTO.setPageSize(size);
+        accountHistoryCursorDTO.setHasMore(hasMore);
+        if (hasMore) {
+            accountHistoryCursorDTO.setNextCursor(positions.get(size - 1).encode());
+        }
+        if (withCount) {
+            long totalElements = accountOperationRepository.countByBankAccount_IdAndDateGreaterThanEqual(accountId, archive.horizon())
+                    + archive.count(accountId);
+            accountHistoryCursorDTO.setTotalPages((int) ((totalElements + size - 1) / size));
+        }
+        accountHistoryCursorDTO.setAccountOperationDTOs(accountOperationDTOs);
+
+        return accountHistoryCursorDTO;
+    }
+    /** The account's archived operations, oldest first, as the history shows them. */
+    private List<AccountOperationDTO> archivedHistory(ArchiveView archive, String accountId) {
+        if (archive.isEmpty()) {
+            return List.of();
+        }
+        String currency = archive.currency(accountId);
+        return archive.operations(accountId).stream()
+                .map(op -> bankAccountMapper.fromArchivedOperation(op, currency))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BalanceAtDTO getBalanceAt(String accountId, Instant at) throws BankAccountNotFoundException {
+        return balanceSnapshotService.balanceAt(accountId, at);
+    }
 
-        AccountHistoryDTO accountHistoryDTO = new AccountHistoryDTO();
-        accountHistoryDTO.setAccountId(accountId);
-        accountHistoryDTO.setBalance(bankAccount.getBalance());
-        accountHistoryDTO.setCurrentPage(page);
-        accountHistoryDTO.setPageSize(size);
-        accountHistoryDTO.setTotalPages(accountOperations.getTotalPages());
-        accountHistoryDTO.setAccountOperationDTOs(accountOperations.getContent().stream()
-                .map(op -> bankAccountMapper.fromAccountOperation(op))
-                .collect(Collectors.toList()));
+    @Override
+    @Transactional(readOnly = true)
+    public List<DailyBalanceDTO> getDailyBalances(String accountId, LocalDate from, LocalDate to) {
+        return balanceSnapshotService.dailyBalances(accountId, from, to);
+    }
 
-        return accountHistoryDTO;
+    @Override
+    @Transactional(readOnly = true)
+    public List<StatementLineDTO> getStatement(String accountId, LocalDate from, LocalDate to, StatementBucket bucket) {
+        return statementService.statement(accountId, from, to, bucket);
     }
+
     @Override
+    @Transactional(readOnly = true)
     public List<CustomerDTO> searchCustomers(String keyword) {
-        List<Customer> customers = customerRepository.searchCustomer(keyword);
-        List<CustomerDTO> customerDTOS = customers.stream()
-                .map(customer -> bankAccountMapper.fromCustomer(customer))
-                .collect(Collectors.toList());
-        return customerDTOS;
+        return customerSearchIndex.search(keyword, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerDTO> searchCustomers(String keyword, int page, int size) {
+        return customerSearchIndex.search(keyword, page, size);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package org.example.springbootbank.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.dtos.BulkTransferMode;
+import org.example.springbootbank.dtos.BulkTransferResultDTO;
+import org.example.springbootbank.dtos.TransferDTO;
+import org.example.springbootbank.dtos.TransferResultDTO;
+import org.example.springbootbank.dtos.TransferStatus;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Applies many transfers with one lock acquisition, one balance read and one ledger append per chunk,
+ * instead of a transaction and four saves per transfer.
+ * In best-effort mode transfers are grouped by source account (keeping their submission order within
+ * an account) so a chunk locks as few stripes as possible; balances are checked against a running total in memory
+ * and the postings of the whole chunk go to the {@link LedgerWriter} together, which inserts them
+ * with batched JDBC statements.
+ * In {@link BulkTransferMode#BEST_EFFORT} mode every chunk commits on its own and invalid transfers
+ * are skipped; in {@link BulkTransferMode#ALL_OR_NOTHING} mode the whole request is a single chunk
+ * and one invalid transfer leaves every balance untouched. A chunk that fails to commit is reported
+ * as not applied, transfer by transfer, while the chunks before it stay committed.
+ * With the {@link PartitionedBalanceEngine} enabled the transfers are queued to it instead, in
+ * submission order, and only best-effort mode is available: the engine commits per partition batch.
+ */
+@Component
+@Slf4j
+public class BulkTransferProcessor {
+    private final BalanceMutationEngine balanceMutationEngine;
+    private final LedgerWriter ledgerWriter;
+    private final PartitionedBalanceEngine partitionedBalanceEngine;
+    private final BankAccountRepository bankAccountRepository;
+    private final CacheManager cacheManager;
+    private final int chunkSize;
+
+    public BulkTransferProcessor(BalanceMutationEngine balanceMutationEngine,
+                                 LedgerWriter ledgerWriter,
+                                 PartitionedBalanceEngine partitionedBalanceEngine,
+                                 BankAccountRepository bankAccountRepository,
+                                 CacheManager cacheManager,
+                                 @Value("${bank.bulk.chunk-size:500}") int chunkSize) {
+        this.balanceMutationEngine = balanceMutationEngine;
+        this.ledgerWriter = ledgerWriter;
+        this.partitionedBalanceEngine = partitionedBalanceEngine;
+        this.bankAccountRepository = bankAccountRepository;
+        this.cacheManager = cacheManager;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkTransferResultDTO process(List<TransferDTO> transfers, BulkTransferMode mode) {
+        TransferResultDTO[] results = new TransferResultDTO[transfers.size()];
+        List<Integer> valid = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            String error = validate(transfers.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                results[i] = new TransferResultDTO(i, TransferStatus.REJECTED, error);
+            }
+        }
+        if (partitionedBalanceEngine.isEnabled()) {
+            submitToEngine(transfers, valid, mode, results);
+        } else if (mode == BulkTransferMode.ALL_OR_NOTHING) {
+            // a single chunk locks every account anyway: keep the submission order, later transfers may rely on earlier ones
+            if (valid.size() < transfers.size()) {
+                markNotApplied(valid, results);
+            } else if (!valid.isEmpty()) {
+                applyChunk(transfers, valid, true, results);
+            }
+        } else {
+            // List.sort is stable: transfers from one account keep their submission order
+            valid.sort(Comparator.comparing(i -> transfers.get(i).getAccountSource()));
+            for (int from = 0; from < valid.size(); from += chunkSize) {
+                applyChunk(transfers, valid.subList(from, Math.min(from + chunkSize, valid.size())), false, results);
+            }
+        }
+
+        BulkTransferResultDTO bulkTransferResultDTO = new BulkTransferResultDTO();
+        bulkTransferResultDTO.setMode(mode);
+        bulkTransferResultDTO.setResults(Arrays.asList(results));
+        for (TransferResultDTO result : results) {
+            if (result.getStatus() == TransferStatus.APPLIED) {
+                bulkTransferResultDTO.setApplied(bulkTransferResultDTO.getApplied() + 1);
+            } else if (result.getStatus() == TransferStatus.REJECTED) {
+                bulkTransferResultDTO.setRejected(bulkTransferResultDTO.getRejected() + 1);
+            }
+        }
+        log.info("Bulk transfer ({}): {} applied, {} rejected out of {}",
+                mode, bulkTransferResultDTO.getApplied(), bulkTransferResultDTO.getRejected(), transfers.size());
+        return bulkTransferResultDTO;
+    }
+
+    private static String validate(TransferDTO transfer) {
+        if (transfer == null || transfer.getAccountSource() == null || transfer.getAccountDestination() == null) {
+            return "Source and destination accounts are required";
+        }
+        if (transfer.getAccountSource().equals(transfer.getAccountDestination())) {
+            return "Source and destination accounts must differ";
+        }
+        if (!(transfer.getAmount() > 0)) {
+            return "Amount must be positive";
+        }
+        return null;
+    }
+
+    private void applyChunk(List<TransferDTO> transfers, List<Integer> chunk, boolean atomic, TransferResultDTO[] results) {
+        Set<String> accountIds = new LinkedHashSet<>();
+        for (int i : chunk) {
+            accountIds.add(transfers.get(i).getAccountSource());
+            accountIds.add(transfers.get(i).getAccountDestination());
+        }
+        try {
+            balanceMutationEngine.execute(() -> {
+                Map<String, BankAccount> accounts = new HashMap<>();
+                Map<String, Long> balances = new HashMap<>();
+                bankAccountRepository.findAllById(accountIds).forEach(bankAccount -> {
+                    accounts.put(bankAccount.getId(), bankAccount);
+                    balances.put(bankAccount.getId(), bankAccount.getBalance());
+                });
+                List<LedgerWriter.Posting> postings = new ArrayList<>(chunk.size() * 2);
+                boolean rejected = false;
+                for (int i : chunk) {
+                    TransferDTO transfer = transfers.get(i);
+                    BankAccount source = accounts.get(transfer.getAccountSource());
+                    BankAccount destination = accounts.get(transfer.getAccountDestination());
+                    String error = null;
+                    long amount = 0;
+                    if (source == null || destination == null) {
+                        error = "Bank account not found";
+                    } else if (!Money.currency(source.getCurrency()).equals(Money.currency(destination.getCurrency()))) {
+                        error = "Accounts have different currencies";
+                    } else {
+                        try {
+                            amount = Money.toMinor(transfer.getAmount(), source.getCurrency());
+                        } catch (IllegalArgumentException e) {
+                            error = e.getMessage();
+                        }
+                    }
+                    if (error == null && balances.get(source.getId()) < amount) {
+                        error = "Insufficient balance";
+                    }
+                    if (error != null) {
+                        results[i] = new TransferResultDTO(i, TransferStatus.REJECTED, error);
+                        rejected = true;
+                    } else {
+                        balances.put(source.getId(), Money.subtract(balances.get(source.getId()), amount));
+                        balances.put(destination.getId(), Money.add(balances.get(destination.getId()), amount));
+                        postings.add(debit(transfer, amount, source.getVersion()));
+                        postings.add(credit(transfer, amount));
+                        results[i] = new TransferResultDTO(i, TransferStatus.APPLIED, null);
+                    }
+                }
+                if (atomic && rejected) {
+                    markNotApplied(chunk, results);
+                    return null;
+                }
+                ledgerWriter.append(postings);
+                return null;
+            }, accountIds.toArray(String[]::new));
+        } catch (BankAccountNotFoundException | BalanceNotSufficientException e) {
+            // the chunk reports its rejections per transfer instead of throwing
+            throw new IllegalStateException(e);
+        } catch (RuntimeException e) {
+            // the chunks before this one are committed: report this one instead of failing the whole request
+            log.warn("Bulk transfer chunk of {} transfers could not be committed", chunk.size(), e);
+            for (int i : chunk) {
+                if (results[i] == null || results[i].getStatus() == TransferStatus.APPLIED) {
+                    results[i] = new TransferResultDTO(i, TransferStatus.NOT_APPLIED, "Could not be committed");
+                }
+            }
+        } finally {
+            Cache accounts = cacheManager.getCache("accounts");
+            if (accounts != null) {
+                accountIds.forEach(accounts::evict);
+            }
+        }
+    }
+
+    private void submitToEngine(List<TransferDTO> transfers, List<Integer> valid, BulkTransferMode mode, TransferResultDTO[] results) {
+        if (mode == BulkTransferMode.ALL_OR_NOTHING) {
+            for (int i : valid) {
+                results[i] = new TransferResultDTO(i, TransferStatus.REJECTED, "All-or-nothing bulk transfers are not supported by the balance engine");
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> acks = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            TransferDTO transfer = transfers.get(i);
+            acks.add(partitionedBalanceEngine.submitTransfer(transfer.getAccountSource(), transfer.getAccountDestination(),
+                    transfer.getAmount(), transfer.getDescription()));
+        }
+        Cache accounts = cacheManager.getCache("accounts");
+        for (int k = 0; k < valid.size(); k++) {
+            int i = valid.get(k);
+            try {
+                acks.get(k).join();
+                results[i] = new TransferResultDTO(i, TransferStatus.APPLIED, null);
+            } catch (CompletionException e) {
+                results[i] = new TransferResultDTO(i, TransferStatus.REJECTED, e.getCause().getMessage());
+            }
+            if (accounts != null) {
+                accounts.evict(transfers.get(i).getAccountSource());
+                accounts.evict(transfers.get(i).getAccountDestination());
+            }
+        }
+    }
+
+    private static void markNotApplied(List<Integer> indexes, TransferResultDTO[] results) {
+        for (int i : indexes) {
+            if (results[i] == null || results[i].getStatus() == TransferStatus.APPLIED) {
+                results[i] = new TransferResultDTO(i, TransferStatus.NOT_APPLIED, null);
+            }
+        }
+    }
+
+    private static LedgerWriter.Posting debit(TransferDTO transfer, long amount, Long checkedVersion) {
+        String description = transfer.getDescription() != null ? transfer.getDescription() : "Transfer to " + transfer.getAccountDestination();
+        return LedgerWriter.Posting.debit(transfer.getAccountSource(), amount, description, checkedVersion);
+    }
+
+    private static LedgerWriter.Posting credit(TransferDTO transfer, long amount) {
+        String description = transfer.getDescription() != null ? transfer.getDescription() : "transfer from " + transfer.getAccountSource();
+        return LedgerWriter.Posting.credit(transfer.getAccountDestination(), amount, description);
+    }
+}
@@ -0,0 +1,326 @@
+package org.example.springbootbank.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.repository.CustomerRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over customer name and email, replacing the {@code like %kw%} scan.
+ * Every trigram maps to the sorted ids of the customers containing it; a search intersects the
+ * posting lists of the keyword's trigrams, starting with the rarest, then checks the survivors
+ * for a real substring match, keeping only the best {@code (page + 1) * size} in a bounded heap.
+ * Keywords shorter than a trigram, the empty one included, are not ranked: matches come in id
+ * order and the scan stops once the page is full. The index is loaded once the application is
+ * ready and kept up to date by the service after each committed customer change.
+ */
+@Component
+@Slf4j
+public class CustomerSearchIndex {
+    private static final int LOAD_BATCH = 10_000;
+    private static final Comparator<Match> MATCH_ORDER = Comparator.comparingInt(Match::rank)
+            .thenComparingInt(match -> match.document().name().length())
+            .thenComparingLong(match -> match.document().id());
+
+    private final CustomerRepository customerRepository;
+    private final NavigableMap<Long, Document> documents = new TreeMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CustomerSearchIndex(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        long lastId = Long.MIN_VALUE;
+        List<CustomerDTO> batch;
+        do {
+            batch = customerRepository.findProjectedAfter(lastId, PageRequest.of(0, LOAD_BATCH));
+            batch.forEach(this::put);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == LOAD_BATCH);
+        log.info("Customer search index loaded {} customers in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Indexes the customer once the current transaction commits, or right away without one. */
+    public void putAfterCommit(CustomerDTO customer) {
+        afterCommit(() -> put(customer));
+    }
+
+    public void removeAfterCommit(Long customerId) {
+        afterCommit(() -> remove(customerId));
+    }
+
+    public void put(CustomerDTO customer) {
+        Document document = Document.of(customer);
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(document.id(), document);
+            if (previous != null) {
+                unindex(previous);
+            }
+            for (long trigram : document.trigrams()) {
+                postings.computeIfAbsent(trigram, key -> new PostingList()).add(document.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long customerId) {
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.remove(customerId);
+            if (previous != null) {
+                unindex(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Document document) {
+        for (long trigram : document.trigrams()) {
+            PostingList postingList = postings.get(trigram);
+            postingList.remove(document.id());
+            if (postingList.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Customers whose name or email contains the keyword (case-insensitive), best matches first:
+     * name prefix, then name substring, then email only; ties go to the shorter name, then the id.
+     * Keywords shorter than three characters match in id order.
+     */
+    public List<CustomerDTO> search(String keyword, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be at least 0 and size at least 1");
+        }
+        String needle = keyword == null ? "" : keyword.toLowerCase(Locale.ROOT);
+        long offset = (long) page * size;
+        lock.readLock().lock();
+        try {
+            if (offset >= documents.size()) {
+                return List.of();
+            }
+            return needle.length() < 3
+                    ? scan(needle, (int) offset, size)
+                    : rank(needle, (int) offset, (int) Math.min(offset + size, documents.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Matches in id order, stopping at the end of the page. */
+    private List<CustomerDTO> scan(String needle, int offset, int size) {
+        List<CustomerDTO> result = new ArrayList<>(Math.min(size, documents.size() - offset));
+        int skipped = 0;
+        for (Document document : documents.values()) {
+            if (!document.name().contains(needle) && !document.email().contains(needle)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            result.add(document.toCustomerDTO());
+            if (result.size() == size) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /** The matches from offset to limit in rank order, out of a heap holding at most limit of them. */
+    private List<CustomerDTO> rank(String needle, int offset, int limit) {
+        // worst match on top, so it is the one evicted when the heap overflows
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, MATCH_ORDER.reversed());
+        PostingList candidates = candidates(needle);
+        for (int i = 0; i < candidates.size; i++) {
+            Match match = match(documents.get(candidates.ids[i]), needle);
+            if (match != null) {
+                best.add(match);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        CustomerDTO[] ranked = new CustomerDTO[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll().document().toCustomerDTO();
+        }
+        return offset >= ranked.length ? List.of() : Arrays.asList(ranked).subList(offset, ranked.length);
+    }
+
+    private PostingList candidates(String needle) {
+        long[] keys = trigramsOf(needle);
+        PostingList[] lists = new PostingList[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            lists[i] = postings.get(keys[i]);
+            if (lists[i] == null) {
+                return new PostingList();
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        PostingList result = lists[0];
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            result = result.intersect(lists[i]);
+        }
+        return result;
+    }
+
+    private static Match match(Document document, String needle) {
+        int rank;
+        if (document.name().startsWith(needle)) {
+            rank = 0;
+        } else if (document.name().contains(needle)) {
+            rank = 1;
+        } else if (document.email().contains(needle)) {
+            rank = 2;
+        } else {
+            return null;
+        }
+        return new Match(rank, document);
+    }
+
+    private static long[] trigramsOf(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] keys = new long[text.length() - 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(keys).distinct().toArray();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Match(int rank, Document document) {
+    }
+
+    /** A customer as indexed: lower-cased fields for matching, original ones for the results. */
+    private record Document(long id, String name, String email, String originalName, String originalEmail) {
+        static Document of(CustomerDTO customer) {
+            String name = customer.getName() == null ? "" : customer.getName();
+            String email = customer.getEmail() == null ? "" : customer.getEmail();
+            return new Document(customer.getId(), name.toLowerCase(Locale.ROOT), email.toLowerCase(Locale.ROOT),
+                    customer.getName(), customer.getEmail());
+        }
+
+        long[] trigrams() {
+            // '\n' never appears in a keyword, so no trigram spans the two fields
+            return trigramsOf(name + '\n' + email);
+        }
+
+        CustomerDTO toCustomerDTO() {
+            return new CustomerDTO(id, originalName, originalEmail);
+        }
+    }
+
+    /** Sorted set of customer ids backed by a primitive array; ids mostly arrive in increasing order. */
+    static final class PostingList {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == 0 || ids[size - 1] < id) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            grow();
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        PostingList intersect(PostingList other) {
+            PostingList result = new PostingList();
+            result.ids = new long[Math.min(size, other.size)];
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    result.ids[result.size++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            }
+        }
+    }
+}
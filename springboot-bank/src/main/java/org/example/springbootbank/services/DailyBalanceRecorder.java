@@ -0,0 +1,84 @@
+package org.example.springbootbank.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.DailyBalance;
+import org.example.springbootbank.entities.DailyBalanceId;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.DailyBalanceRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the {@link DailyBalance} snapshots in step with the ledger: called by the {@link LedgerWriter}
+ * in the transaction that writes the postings, once their amounts are applied to the accounts.
+ * Days are calendar days in the JVM time zone, the zone operation dates are stored in.
+ */
+@Component
+public class DailyBalanceRecorder {
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final DailyBalanceRepository dailyBalanceRepository;
+    private final EntityManager entityManager;
+
+    public DailyBalanceRecorder(DailyBalanceRepository dailyBalanceRepository, EntityManager entityManager) {
+        this.dailyBalanceRepository = dailyBalanceRepository;
+        this.entityManager = entityManager;
+    }
+
+    static LocalDate dayOf(Date date) {
+        return LocalDate.ofInstant(date.toInstant(), ZONE);
+    }
+
+    static Date startOf(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZONE).toInstant());
+    }
+
+    /** @param accounts the accounts of the postings, balances already including them */
+    void record(List<LedgerWriter.Posting> postings, Map<String, BankAccount> accounts) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Set<LocalDate> days = new HashSet<>();
+        Map<String, Long> running = new HashMap<>();
+        for (LedgerWriter.Posting posting : postings) {
+            days.add(dayOf(posting.date()));
+            // walk back from the final balance to the one before this write
+            running.merge(posting.accountId(), -net(posting), Money::add);
+        }
+        running.replaceAll((accountId, net) -> Money.add(accounts.get(accountId).getBalance(), net));
+
+        Map<DailyBalanceId, DailyBalance> rows = new HashMap<>();
+        for (DailyBalance dailyBalance : dailyBalanceRepository.findByAccountsAndDays(running.keySet(), days)) {
+            rows.put(dailyBalance.getId(), dailyBalance);
+        }
+        for (LedgerWriter.Posting posting : postings) {
+            long balance = running.merge(posting.accountId(), net(posting), Money::add);
+            DailyBalance dailyBalance = rows.computeIfAbsent(new DailyBalanceId(posting.accountId(), dayOf(posting.date())), id -> {
+                DailyBalance created = new DailyBalance(id, 0, 0, 0, 0);
+                entityManager.persist(created);
+                return created;
+            });
+            dailyBalance.setClosingBalance(balance);
+            if (posting.type() == OperationType.CREDIT) {
+                dailyBalance.setCredits(Money.add(dailyBalance.getCredits(), posting.amount()));
+            } else {
+                dailyBalance.setDebits(Money.add(dailyBalance.getDebits(), posting.amount()));
+            }
+            dailyBalance.setOperationCount(dailyBalance.getOperationCount() + 1);
+        }
+    }
+
+    private static long net(LedgerWriter.Posting posting) {
+        return posting.type() == OperationType.CREDIT ? posting.amount() : -posting.amount();
+    }
+}
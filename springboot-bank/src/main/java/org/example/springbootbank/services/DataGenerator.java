@@ -0,0 +1,332 @@
+package org.example.springbootbank.services;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.AccountStatus;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the database with synthetic customers, accounts and operations, from the demo data set of the
+ * defaults up to production-sized ones ({@code bank.data-generator.*}).
+ * Customers are cut into chunks of {@code batch-size} handed to {@code producers} threads; a chunk
+ * inserts its customers and accounts with JDBC batches, then the accounts' operations through JPA
+ * in transactions of {@code batch-size} rows, which Hibernate sends as JDBC batches while its
+ * generator hands out the ids.
+ * Operations per account follow a Zipf law of exponent {@code skew} over the account rank (0 gives
+ * every account {@code operations-per-account}), are spread over the last {@code days} days and never
+ * overdraw: each account's random stream is replayed twice, once for its final balance, which the
+ * account row is inserted with, and once to write the operations, so nothing is held in memory.
+ * The same {@code seed} generates the same amounts and dates.
+ */
+@Component
+@Slf4j
+public class DataGenerator {
+    private static final String[] FIRST_NAMES = {"khadija", "yassir", "oma", "amine", "salma", "youssef", "imane", "hamza",
+            "sara", "omar", "nadia", "karim", "lina", "mehdi", "hiba", "adam"};
+    private static final String[] LAST_NAMES = {"alaoui", "bennani", "el idrissi", "tazi", "berrada", "chraibi", "fassi",
+            "lahlou", "benjelloun", "amrani", "kettani", "sqalli"};
+    private static final String[] CREDIT_DESCRIPTIONS = {"Salary", "Transfer received", "Refund", "Cash deposit"};
+    /** A prime, so coprime with the account count unless it divides it. */
+    private static final long RANK_STRIDE = 1_000_003;
+    private static final String[] DEBIT_DESCRIPTIONS = {"Card payment", "Rent", "Utilities", "Cash withdrawal", "Transfer sent"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int customers;
+    private final int accountsPerCustomer;
+    private final int operationsPerAccount;
+    private final double skew;
+    private final int days;
+    private final int producers;
+    private final int batchSize;
+    private final long seed;
+
+    public DataGenerator(JdbcTemplate jdbcTemplate,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${bank.data-generator.customers:3}") int customers,
+                         @Value("${bank.data-generator.accounts-per-customer:2}") int accountsPerCustomer,
+                         @Value("${bank.data-generator.operations-per-account:10}") int operationsPerAccount,
+                         @Value("${bank.data-generator.skew:0}") double skew,
+                         @Value("${bank.data-generator.days:30}") int days,
+                         @Value("${bank.data-generator.producers:0}") int producers,
+                         @Value("${bank.data-generator.batch-size:1000}") int batchSize,
+                         @Value("${bank.data-generator.seed:1}") long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.customers = customers;
+        this.accountsPerCustomer = accountsPerCustomer;
+        this.operationsPerAccount = operationsPerAccount;
+        this.skew = skew;
+        this.days = Math.max(1, days);
+        this.producers = producers > 0 ? producers : Runtime.getRuntime().availableProcessors();
+        this.batchSize = batchSize;
+        this.seed = seed;
+    }
+
+    public Report generate() throws InterruptedException {
+        long start = System.nanoTime();
+        long accounts = (long) customers * accountsPerCustomer;
+        double[] shares = operationShares(accounts);
+        long now = System.currentTimeMillis();
+        long from = now - Duration.ofDays(days).toMillis();
+        Counters counters = new Counters();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int first = 0; first < customers; first += batchSize) {
+                int chunkStart = first;
+                int chunkEnd = Math.min(first + batchSize, customers);
+                futures.add(executor.submit(() -> generateChunk(chunkStart, chunkEnd, shares, from, now, counters)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Report report = new Report(counters.customers.sum(), counters.accounts.sum(), counters.operations.sum(),
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Generated {} customers, {} accounts and {} operations in {} ms ({} rows/s)",
+                report.customers(), report.accounts(), report.operations(), report.elapsed().toMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    /** Expected share of all the operations per account rank; {@code null} when every account gets the same. */
+    private double[] operationShares(long accounts) {
+        if (skew <= 0 || accounts == 0) {
+            return null;
+        }
+        double[] shares = new double[Math.toIntExact(accounts)];
+        double sum = 0;
+        for (int rank = 0; rank < shares.length; rank++) {
+            shares[rank] = 1 / Math.pow(rank + 1, skew);
+            sum += shares[rank];
+        }
+        for (int rank = 0; rank < shares.length; rank++) {
+            shares[rank] /= sum;
+        }
+        return shares;
+    }
+
+    private void generateChunk(int firstCustomer, int endCustomer, double[] shares, long from, long to, Counters counters) {
+        List<Long> customerIds = insertCustomers(firstCustomer, endCustomer);
+        counters.customers.add(customerIds.size());
+
+        List<GeneratedAccount> accounts = new ArrayList<>(customerIds.size() * accountsPerCustomer);
+        for (int c = 0; c < customerIds.size(); c++) {
+            for (int a = 0; a < accountsPerCustomer; a++) {
+                long index = (long) (firstCustomer + c) * accountsPerCustomer + a;
+                accounts.add(account(index, rankOf(index, shares), customerIds.get(c), shares));
+            }
+        }
+        insertAccounts(accounts, new Date(from));
+        counters.accounts.add(accounts.size());
+
+        List<GeneratedOperation> batch = new ArrayList<>(batchSize);
+        for (GeneratedAccount account : accounts) {
+            OperationStream operations = new OperationStream(account, from, to);
+            while (operations.hasNext()) {
+                batch.add(operations.next());
+                if (batch.size() == batchSize) {
+                    persist(batch);
+                    counters.operations.add(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+        persist(batch);
+        counters.operations.add(batch.size());
+    }
+
+    private List<Long> insertCustomers(int firstCustomer, int endCustomer) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement("insert into customer (name, email) values (?, ?)", new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        int index = firstCustomer + i;
+                        String firstName = FIRST_NAMES[index % FIRST_NAMES.length];
+                        String lastName = LAST_NAMES[(index / FIRST_NAMES.length) % LAST_NAMES.length];
+                        statement.setString(1, firstName + " " + lastName);
+                        statement.setString(2, (firstName + "." + lastName).replace(' ', '-') + "." + index + "@example.com");
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return endCustomer - firstCustomer;
+                    }
+                }, keys);
+        List<Long> ids = new ArrayList<>(endCustomer - firstCustomer);
+        for (Map<String, Object> key : keys.getKeyList()) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Scatters the popularity ranks over the accounts with a multiplicative permutation, so the hot
+     * accounts, and their operations, fall into different chunks and producers.
+     */
+    private static long rankOf(long index, double[] shares) {
+        if (shares == null) {
+            return index;
+        }
+        long accounts = shares.length;
+        long stride = RANK_STRIDE;
+        while (BigInteger.valueOf(stride).gcd(BigInteger.valueOf(accounts)).longValue() != 1) {
+            stride++;
+        }
+        return Math.floorMod(index * stride, accounts);
+    }
+
+    private GeneratedAccount account(long index, long rank, long customerId, double[] shares) {
+        long operations = shares == null ? operationsPerAccount
+                : Math.round(shares[Math.toIntExact(rank)] * operationsPerAccount * shares.length);
+        SplittableRandom random = new SplittableRandom(seed * 31 + index);
+        long openingBalance = random.nextLong(9_000_000);
+        String id = UUID.nameUUIDFromBytes(("account-" + seed + "-" + index).getBytes(StandardCharsets.UTF_8)).toString();
+        // first pass: only the final balance
+        OperationStream stream = new OperationStream(new GeneratedAccount(id, index, customerId, index % 2 == 0, openingBalance, 0, operations), 0, 1);
+        while (stream.hasNext()) {
+            stream.next();
+        }
+        return new GeneratedAccount(id, index, customerId, index % 2 == 0, openingBalance, stream.balance, operations);
+    }
+
+    private void insertAccounts(List<GeneratedAccount> accounts, Date createdAt) {
+        Timestamp timestamp = new Timestamp(createdAt.getTime());
+        jdbcTemplate.batchUpdate("insert into bank_account (type, id, created_at, balance, opening_balance, currency, version, status, " +
+                        "customer_id, over_draft, interest_rate) values (?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?)",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        GeneratedAccount account = accounts.get(i);
+                        statement.setString(1, account.current() ? "CA" : "SA");
+                        statement.setString(2, account.id());
+                        statement.setTimestamp(3, timestamp);
+                        statement.setLong(4, account.balance());
+                        statement.setLong(5, account.openingBalance());
+                        statement.setString(6, Money.DEFAULT_CURRENCY);
+                        statement.setString(7, AccountStatus.CREATED.name());
+                        statement.setLong(8, account.customerId());
+                        if (account.current()) {
+                            statement.setDouble(9, 9000);
+                            statement.setNull(10, Types.DOUBLE);
+                        } else {
+                            statement.setNull(9, Types.DOUBLE);
+                            statement.setDouble(10, 5.5);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return accounts.size();
+                    }
+                });
+    }
+
+    private void persist(List<GeneratedOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (GeneratedOperation operation : operations) {
+                entityManager.persist(new AccountOperation(null, operation.date(), operation.amount(), operation.type(),
+                        entityManager.getReference(BankAccount.class, operation.accountId()), operation.description()));
+            }
+        });
+    }
+
+    public record Report(long customers, long accounts, long operations, Duration elapsed) {
+        public long rowsPerSecond() {
+            long millis = Math.max(1, elapsed.toMillis());
+            return (customers + accounts + operations) * 1000 / millis;
+        }
+    }
+
+    private record GeneratedOperation(String accountId, Date date, long amount, OperationType type, String description) {
+    }
+
+    private record GeneratedAccount(String id, long index, long customerId, boolean current,
+                                    long openingBalance, long balance, long operations) {
+    }
+
+    private static final class Counters {
+        private final LongAdder customers = new LongAdder();
+        private final LongAdder accounts = new LongAdder();
+        private final LongAdder operations = new LongAdder();
+    }
+
+    /**
+     * The operations of one account in date order, replayed identically from the account's seed:
+     * dates are stratified over {@code [from, to)}, amounts log-normal around 30 MAD, and a debit
+     * the balance cannot cover becomes a credit.
+     */
+    private final class OperationStream {
+        private final GeneratedAccount account;
+        private final SplittableRandom random;
+        private final long from;
+        private final double step;
+        private long balance;
+        private long index;
+
+        OperationStream(GeneratedAccount account, long from, long to) {
+            this.account = account;
+            this.random = new SplittableRandom(seed * 31 + account.index());
+            this.random.nextLong(9_000_000); // the opening balance
+            this.from = from;
+            this.step = account.operations() == 0 ? 0 : (double) (to - from) / account.operations();
+            this.balance = account.openingBalance();
+        }
+
+        boolean hasNext() {
+            return index < account.operations();
+        }
+
+        GeneratedOperation next() {
+            long date = from + (long) ((index + random.nextDouble()) * step);
+            long amount = 100 + (long) Math.exp(8 + 1.2 * random.nextGaussian());
+            OperationType type = random.nextInt(100) < 55 && amount <= balance ? OperationType.DEBIT : OperationType.CREDIT;
+            balance = type == OperationType.CREDIT ? Money.add(balance, amount) : Money.subtract(balance, amount);
+            String[] descriptions = type == OperationType.CREDIT ? CREDIT_DESCRIPTIONS : DEBIT_DESCRIPTIONS;
+            index++;
+            return new GeneratedOperation(account.id(), new Date(date), amount, type, descriptions[random.nextInt(descriptions.length)]);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.springbootbank.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.example.springbootbank.dtos.OperationEventDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends the events to a newline-delimited JSON file, for local use without a broker. A batch is
+ * encoded into one buffer and written with a single append, forced to disk when
+ * {@code bank.events.file-log.fsync} is set. Enabled by {@code bank.events.file-log.path}.
+ */
+@Component
+@ConditionalOnProperty("bank.events.file-log.path")
+public class FileEventLogSink implements OperationEventSink {
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+    private final boolean fsync;
+
+    public FileEventLogSink(ObjectMapper objectMapper,
+                            @Value("${bank.events.file-log.path}") Path path,
+                            @Value("${bank.events.file-log.fsync:false}") boolean fsync) throws IOException {
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void publish(List<OperationEventDTO> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        for (OperationEventDTO event : events) {
+            lines.write(objectMapper.writeValueAsBytes(event));
+            lines.write('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+}
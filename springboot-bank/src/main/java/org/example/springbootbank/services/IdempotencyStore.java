@@ -0,0 +1,236 @@
+package org.example.springbootbank.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.datasource.ReplicaRoutingDataSource;
+import org.example.springbootbank.entities.IdempotencyRecord;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.example.springbootbank.exceptions.IdempotencyKeyConflictException;
+import org.example.springbootbank.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Replays the response of a money movement retried with the same {@code Idempotency-Key}
+ * instead of applying it again.
+ * Keys are scoped to the authenticated caller. Recent keys live in a bounded Caffeine cache
+ * expiring after {@code bank.idempotency.ttl}, so a retry is answered from memory without
+ * reaching the service or taking an account lock. With {@code bank.idempotency.database-fallback}
+ * every key is also claimed in the {@link IdempotencyRecord} table before the movement runs: the
+ * primary key stops a second node, or a retry after the entry was evicted or the JVM restarted,
+ * from applying it twice.
+ * A key still running, or reused with another request, is rejected with 409 and 422. A movement
+ * that fails releases its key, so the client may retry it. One that was applied but whose response
+ * could not be stored still completes its key, and a retry that cannot get that response back is
+ * answered with 410 rather than being applied again.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final boolean databaseFallback;
+    private final Cache<String, Entry> cache;
+
+    public IdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${bank.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${bank.idempotency.maximum-size:100000}") long maximumSize,
+                            @Value("${bank.idempotency.database-fallback:true}") boolean databaseFallback) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.databaseFallback = databaseFallback;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    /**
+     * Runs the operation once per key: a retry with the same key and request gets the first
+     * response back. Without a key the operation simply runs.
+     */
+    public <T> T execute(String idempotencyKey, String operation, Object request, Class<T> responseType,
+                         OperationMetrics.Operation<T> action) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.run();
+        }
+        String id = scope() + ':' + idempotencyKey;
+        String fingerprint = fingerprint(operation, request);
+        Entry entry = cache.getIfPresent(id);
+        if (entry == null && databaseFallback) {
+            entry = load(id);
+        }
+        if (entry != null) {
+            return replay(entry, fingerprint, responseType);
+        }
+
+        Entry pending = new Entry(fingerprint, false, null, null);
+        Entry existing = cache.asMap().putIfAbsent(id, pending);
+        if (existing != null) {
+            return replay(existing, fingerprint, responseType);
+        }
+        IdempotencyRecord record = null;
+        T result;
+        try {
+            if (databaseFallback) {
+                record = claim(id, fingerprint);
+            }
+            result = action.run();
+        } catch (Exception e) {
+            cache.asMap().remove(id, pending);
+            if (record != null) {
+                release(record);
+            }
+            throw e;
+        }
+        // the movement is applied: from here on the key must end up completed, whatever fails
+        String response = serialize(operation, result);
+        cache.put(id, new Entry(fingerprint, true, result, response));
+        if (record != null) {
+            complete(record, response);
+        }
+        return result;
+    }
+
+    /** The response as JSON, null when it cannot be serialized. */
+    private String serialize(String operation, Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Response of {} is not serializable, retries on other nodes will not get it back", operation, e);
+            return null;
+        }
+    }
+
+    private Entry load(String id) {
+        // a replica may not have the claim of a retry still running yet
+        Optional<IdempotencyRecord> record = ReplicaRoutingDataSource.onPrimary(() -> idempotencyRecordRepository.findById(id));
+        if (record.isEmpty()) {
+            return null;
+        }
+        if (record.get().getCreatedAt().before(expiredBefore())) {
+            idempotencyRecordRepository.delete(record.get());
+            return null;
+        }
+        Entry entry = new Entry(record.get().getFingerprint(), record.get().isCompleted(), null, record.get().getResponse());
+        if (entry.completed()) {
+            cache.put(id, entry);
+        }
+        return entry;
+    }
+
+    private IdempotencyRecord claim(String id, String fingerprint) {
+        try {
+            return idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(id, fingerprint, null, false, new Date(), null));
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyKeyConflictException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is already in progress");
+        }
+    }
+
+    private void complete(IdempotencyRecord record, String response) {
+        if (response != null) {
+            record.setResponse(response);
+            record.setCompleted(true);
+            try {
+                idempotencyRecordRepository.save(record);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Could not store the response of idempotency key {}, completing it without one", record.getId(), e);
+            }
+        }
+        try {
+            idempotencyRecordRepository.markCompleted(record.getId());
+        } catch (RuntimeException e) {
+            // other nodes keep seeing the key as in progress until it expires; it is never applied twice
+            log.error("Could not complete idempotency key {}", record.getId(), e);
+        }
+    }
+
+    private void release(IdempotencyRecord record) {
+        try {
+            idempotencyRecordRepository.delete(record);
+        } catch (RuntimeException e) {
+            // the key stays claimed until it expires: a retry is refused rather than applied twice
+            log.warn("Could not release idempotency key {}", record.getId(), e);
+        }
+    }
+
+    private <T> T replay(Entry entry, String fingerprint, Class<T> responseType) {
+        if (!entry.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyConflictException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used with another request");
+        }
+        if (!entry.completed()) {
+            throw new IdempotencyKeyConflictException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is already in progress");
+        }
+        if (entry.result() != null) {
+            return responseType.cast(entry.result());
+        }
+        if (entry.response() == null) {
+            throw new IdempotencyKeyConflictException(HttpStatus.GONE,
+                    "The request with this Idempotency-Key was already applied, its response is no longer available");
+        }
+        try {
+            return objectMapper.readValue(entry.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response is not readable as " + responseType.getSimpleName(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.idempotency.cleanup-interval:PT10M}")
+    public void deleteExpired() {
+        if (databaseFallback) {
+            int deleted = idempotencyRecordRepository.deleteCreatedBefore(expiredBefore());
+            log.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Date expiredBefore() {
+        return new Date(System.currentTimeMillis() - ttl.toMillis());
+    }
+
+    private static String scope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request of " + operation + " is not serializable", e);
+        }
+    }
+
+    /** A key's state: the response is kept as the object when produced here, as JSON when loaded from the table. */
+    private record Entry(String fingerprint, boolean completed, Object result, String response) {
+    }
+}
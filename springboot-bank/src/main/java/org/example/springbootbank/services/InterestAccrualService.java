@@ -0,0 +1,256 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.datasource.ReplicaRoutingDataSource;
+import org.example.springbootbank.dtos.InterestAccrualReportDTO;
+import org.example.springbootbank.entities.InterestAccrualRun;
+import org.example.springbootbank.entities.SavingAccount;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.example.springbootbank.repository.InterestAccrualRunRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Credits the interest of a period to every savings account: balance × yearly rate / periods per year,
+ * rounded half-even to minor units. Savings accounts are walked in id order and handed in chunks to a
+ * thread pool; each chunk is accrued in one transaction while holding its accounts' locks, its
+ * operations, balances, snapshots and outbox events written through the {@link LedgerWriter} in JDBC
+ * batches of {@code bank.interest.jdbc-batch-size}.
+ * An account records the period it was last accrued for in the same transaction, so a chunk is applied
+ * at most once whatever happens to the run. The run's {@link InterestAccrualRun} row keeps the last account id
+ * up to which every chunk is done, advanced as chunks finish, and a run of the same period, or the next
+ * startup, resumes from there.
+ */
+@Service
+@Slf4j
+public class InterestAccrualService {
+    private final BankAccountRepository bankAccountRepository;
+    private final InterestAccrualRunRepository interestAccrualRunRepository;
+    private final BalanceMutationEngine balanceMutationEngine;
+    private final PartitionedBalanceEngine partitionedBalanceEngine;
+    private final LedgerWriter ledgerWriter;
+    private final EntityManager entityManager;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int threads;
+    private final int chunkSize;
+    private final int jdbcBatchSize;
+    /** Percent times periods per year. */
+    private final BigDecimal rateDivisor;
+    private final int maxRetries;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InterestAccrualService(BankAccountRepository bankAccountRepository,
+                                  InterestAccrualRunRepository interestAccrualRunRepository,
+                                  BalanceMutationEngine balanceMutationEngine,
+                                  PartitionedBalanceEngine partitionedBalanceEngine,
+                                  LedgerWriter ledgerWriter,
+                                  EntityManager entityManager,
+                                  CacheManager cacheManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.interest.threads:0}") int threads,
+                                  @Value("${bank.interest.chunk-size:1000}") int chunkSize,
+                                  @Value("${bank.interest.jdbc-batch-size:500}") int jdbcBatchSize,
+                                  @Value("${bank.interest.periods-per-year:12}") int periodsPerYear,
+                                  @Value("${bank.locks.max-retries:5}") int maxRetries) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.interestAccrualRunRepository = interestAccrualRunRepository;
+        this.balanceMutationEngine = balanceMutationEngine;
+        this.partitionedBalanceEngine = partitionedBalanceEngine;
+        this.ledgerWriter = ledgerWriter;
+        this.entityManager = entityManager;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(this.threads);
+        this.chunkSize = chunkSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.rateDivisor = BigDecimal.valueOf(100L * periodsPerYear);
+        this.maxRetries = maxRetries;
+    }
+
+    /** Accrues the period that ended yesterday. */
+    @Scheduled(cron = "${bank.interest.cron:-}")
+    public void scheduledAccrue() throws InterruptedException {
+        accrue(LocalDate.now().minusDays(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        List<InterestAccrualRun> interrupted = interestAccrualRunRepository.findByCompletedAtIsNull();
+        if (interrupted.isEmpty()) {
+            return;
+        }
+        Thread.ofVirtual().name("interest-accrual-resume").start(() -> {
+            for (InterestAccrualRun run : interrupted) {
+                try {
+                    log.info("Resuming the interest accrual of {} after account {}", run.getPeriod(), run.getCheckpoint());
+                    accrue(run.getPeriod());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Could not resume the interest accrual of {}", run.getPeriod(), e);
+                }
+            }
+        });
+    }
+
+    /** Accrues the period ending on {@code period}, or resumes its interrupted run; a completed period is left as is. */
+    public InterestAccrualReportDTO accrue(LocalDate period) throws InterruptedException {
+        if (partitionedBalanceEngine.isEnabled()) {
+            throw new IllegalStateException("Interest accrual writes balances directly and cannot run with the partitioned balance engine");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An interest accrual is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            InterestAccrualRun run = ReplicaRoutingDataSource.onPrimary(() -> interestAccrualRunRepository.findById(period))
+                    .orElseGet(() -> interestAccrualRunRepository.save(new InterestAccrualRun(period, "", 0, 0, new Date(), null)));
+            String resumedFrom = run.getCheckpoint();
+            if (run.getCompletedAt() == null) {
+                accrueAfter(period, resumedFrom);
+                interestAccrualRunRepository.complete(period, new Date());
+                run = ReplicaRoutingDataSource.onPrimary(() -> interestAccrualRunRepository.findById(period)).orElseThrow();
+            }
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Accrued the interest of {} on {} accounts, {} operations, in {} ms", period, run.getAccounts(), run.getOperations(), millis);
+            return new InterestAccrualReportDTO(period, resumedFrom, run.getAccounts(), run.getOperations(), millis);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void accrueAfter(LocalDate period, String after) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(threads * 2);
+        Deque<Chunk> pending = new ArrayDeque<>();
+        List<String> accountIds;
+        do {
+            accountIds = bankAccountRepository.findSavingAccountIdsAfter(after, PageRequest.of(0, chunkSize));
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            after = accountIds.get(accountIds.size() - 1);
+            List<String> chunk = accountIds;
+            inFlight.acquire();
+            pending.add(new Chunk(after, executor.submit(() -> {
+                try {
+                    return accrueChunk(period, chunk);
+                } finally {
+                    inFlight.release();
+                }
+            })));
+            advance(period, pending, false);
+        } while (accountIds.size() == chunkSize);
+        advance(period, pending, true);
+    }
+
+    /** Moves the checkpoint past the chunks done in id order; with {@code wait}, past all of them. */
+    private void advance(LocalDate period, Deque<Chunk> pending, boolean wait) throws InterruptedException {
+        String checkpoint = null;
+        try {
+            while (!pending.isEmpty() && (wait || pending.peek().done().isDone())) {
+                try {
+                    pending.peek().done().get();
+                } catch (ExecutionException e) {
+                    pending.forEach(chunk -> chunk.done().cancel(false));
+                    throw new IllegalStateException("Interest accrual of " + period + " failed", e.getCause());
+                }
+                checkpoint = pending.poll().lastAccountId();
+            }
+        } finally {
+            if (checkpoint != null) {
+                interestAccrualRunRepository.advance(period, checkpoint);
+            }
+        }
+    }
+
+    private Integer accrueChunk(LocalDate period, List<String> accountIds) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return balanceMutationEngine.whileLocked(() -> transactionTemplate.execute(status -> accrueLocked(period, accountIds)),
+                            accountIds.toArray(String[]::new));
+                } catch (OptimisticLockingFailureException e) {
+                    // another node moved one of the accounts in between
+                    if (attempt >= maxRetries) {
+                        throw e;
+                    }
+                    log.debug("Concurrent update in the interest chunk after {}, retrying (attempt {})", accountIds.get(0), attempt);
+                }
+            }
+        } finally {
+            Cache accounts = cacheManager.getCache("accounts");
+            if (accounts != null) {
+                accountIds.forEach(accounts::evict);
+            }
+        }
+    }
+
+    private Integer accrueLocked(LocalDate period, List<String> accountIds) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+        List<SavingAccount> accounts = bankAccountRepository.findSavingAccountsToAccrue(accountIds, period);
+        List<LedgerWriter.Posting> postings = new ArrayList<>(accounts.size());
+        String description = "Interest until " + period;
+        for (SavingAccount account : accounts) {
+            account.setInterestAccruedUntil(period);
+            long interest = interest(account.getBalance(), account.getInterestRate());
+            if (interest > 0) {
+                postings.add(LedgerWriter.Posting.credit(account.getId(), interest, description));
+            }
+        }
+        if (!postings.isEmpty()) {
+            // joins this transaction; the accounts it reloads are the ones marked above
+            ledgerWriter.writeNow(postings);
+        }
+        interestAccrualRunRepository.addProgress(period, accounts.size(), postings.size());
+        return accounts.size();
+    }
+
+    /** @return interest of one period in minor units, none on a negative balance */
+    long interest(long balance, double yearlyRate) {
+        if (balance <= 0 || yearlyRate <= 0) {
+            return 0;
+        }
+        return BigDecimal.valueOf(balance).multiply(BigDecimal.valueOf(yearlyRate))
+                .divide(rateDivisor, 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private record Chunk(String lastAccountId, Future<Integer> done) {
+    }
+}
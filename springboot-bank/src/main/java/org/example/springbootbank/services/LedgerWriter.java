@@ -0,0 +1,248 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Appends account operations to the ledger and applies their amounts to the account balances
+ * and to their daily snapshots, and records them in the outbox in the same transaction.
+ * Inside an existing read-write transaction the postings are written inline. Otherwise they are queued
+ * and a single writer thread commits the postings of many callers in one transaction
+ * (group commit), flushing when the batch is full or the time window elapses.
+ * {@link #append} returns only once the batch holding the postings is committed.
+ * Between {@link #defer} and {@link #takeDeferred} appends are only collected, so a caller can
+ * close its own transaction, and give its pooled connection back, before waiting on the writer
+ * thread, which needs a connection of its own to commit.
+ * A posting that carries the version its balance was checked at is only written if the account
+ * is still at that version; otherwise the commit fails with an optimistic locking failure and the
+ * caller checks again, since the check and the write may run in two transactions.
+ */
+@Component
+@Slf4j
+public class LedgerWriter {
+    private final AccountOperationRepository accountOperationRepository;
+    private final BankAccountRepository bankAccountRepository;
+    private final DailyBalanceRecorder dailyBalanceRecorder;
+    private final OutboxRecorder outboxRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean groupCommit;
+    private final int batchSize;
+    private final long windowNanos;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final ThreadLocal<List<Posting>> deferred = new ThreadLocal<>();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    public LedgerWriter(AccountOperationRepository accountOperationRepository,
+                        BankAccountRepository bankAccountRepository,
+                        DailyBalanceRecorder dailyBalanceRecorder,
+                        OutboxRecorder outboxRecorder,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${bank.ledger.group-commit:true}") boolean groupCommit,
+                        @Value("${bank.ledger.batch-size:100}") int batchSize,
+                        @Value("${bank.ledger.window-ms:2}") long windowMillis) {
+        this.accountOperationRepository = accountOperationRepository;
+        this.bankAccountRepository = bankAccountRepository;
+        this.dailyBalanceRecorder = dailyBalanceRecorder;
+        this.outboxRecorder = outboxRecorder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.groupCommit = groupCommit;
+        this.batchSize = batchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.writerThread = new Thread(this::runWriter, "ledger-writer");
+        this.writerThread.setDaemon(true);
+        if (groupCommit) {
+            writerThread.start();
+        }
+    }
+
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    public void append(List<Posting> postings) {
+        List<Posting> collected = deferred.get();
+        if (collected != null) {
+            collected.addAll(postings);
+            return;
+        }
+        if (postings.isEmpty()) {
+            return;
+        }
+        if (!groupCommit || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            write(postings);
+            return;
+        }
+        if (!running) {
+            throw new IllegalStateException("Ledger writer is stopped");
+        }
+        PendingAppend pending = new PendingAppend(postings, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            pending.ack().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Collects the postings appended by this thread until {@link #takeDeferred} instead of committing them. */
+    public void defer() {
+        deferred.set(new ArrayList<>());
+    }
+
+    public List<Posting> takeDeferred() {
+        List<Posting> collected = deferred.get();
+        deferred.remove();
+        return collected == null ? List.of() : collected;
+    }
+
+    /**
+     * Writes the postings right away in a transaction of their own, for callers batching them already;
+     * returns the version each account was committed at.
+     */
+    Map<String, Long> writeNow(List<Posting> postings) {
+        Map<String, BankAccount> accounts = transactionTemplate.execute(status -> write(postings));
+        Map<String, Long> versions = new HashMap<>();
+        accounts.forEach((accountId, bankAccount) -> versions.put(accountId, bankAccount.getVersion()));
+        return versions;
+    }
+
+    private Map<String, BankAccount> write(List<Posting> postings) {
+        Set<String> accountIds = postings.stream().map(Posting::accountId).collect(Collectors.toSet());
+        Map<String, BankAccount> accounts = bankAccountRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(BankAccount::getId, Function.identity()));
+        List<AccountOperation> operations = new ArrayList<>(postings.size());
+        for (Posting posting : postings) {
+            BankAccount bankAccount = accounts.get(posting.accountId());
+            if (bankAccount == null) {
+                throw new IllegalStateException("Bank account " + posting.accountId() + " disappeared before the ledger commit");
+            }
+            if (posting.checkedVersion() != null && !posting.checkedVersion().equals(bankAccount.getVersion())) {
+                // another node moved the balance after it was checked
+                throw new ObjectOptimisticLockingFailureException(BankAccount.class, posting.accountId());
+            }
+            AccountOperation accountOperation = new AccountOperation();
+            accountOperation.setDate(posting.date());
+            accountOperation.setAmount(posting.amount());
+            accountOperation.setType(posting.type());
+            accountOperation.setDescription(posting.description());
+            accountOperation.setBankAccount(bankAccount);
+            operations.add(accountOperation);
+            bankAccount.setBalance(posting.type() == OperationType.CREDIT
+                    ? Money.add(bankAccount.getBalance(), posting.amount())
+                    : Money.subtract(bankAccount.getBalance(), posting.amount()));
+        }
+        accountOperationRepository.saveAll(operations);
+        dailyBalanceRecorder.record(postings, accounts);
+        outboxRecorder.record(operations);
+        return accounts;
+    }
+
+    private void runWriter() {
+        List<PendingAppend> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < batchSize) {
+                    PendingAppend next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        PendingAppend pending;
+        while ((pending = queue.poll()) != null) {
+            pending.ack().completeExceptionally(new IllegalStateException("Ledger writer is stopped"));
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(pending -> write(pending.postings())));
+            batch.forEach(pending -> pending.ack().complete(null));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).ack().completeExceptionally(e);
+                return;
+            }
+            // one bad append must not fail the whole group: commit the members one by one
+            log.debug("Group commit of {} appends failed, retrying them individually", batch.size(), e);
+            for (PendingAppend pending : batch) {
+                commit(List.of(pending));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * @param amount in minor units of the account's currency
+     * @param checkedVersion version of the account when its balance was checked, null when nothing was checked
+     */
+    public record Posting(String accountId, OperationType type, long amount, String description, Date date, Long checkedVersion) {
+        public static Posting debit(String accountId, long amount, String description) {
+            return debit(accountId, amount, description, null);
+        }
+
+        public static Posting debit(String accountId, long amount, String description, Long checkedVersion) {
+            return new Posting(accountId, OperationType.DEBIT, amount, description, new Date(), checkedVersion);
+        }
+
+        public static Posting credit(String accountId, long amount, String description) {
+            return new Posting(accountId, OperationType.CREDIT, amount, description, new Date(), null);
+        }
+    }
+
+    private record PendingAppend(List<Posting> postings, CompletableFuture<Void> ack) {
+    }
+}
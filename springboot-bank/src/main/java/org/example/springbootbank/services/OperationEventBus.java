@@ -0,0 +1,106 @@
+package org.example.springbootbank.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.dtos.OperationEventDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * In-process sink fanning the events out to live subscribers, such as the server-sent event streams.
+ * Each subscription has a bounded queue drained by its own virtual thread, so a slow consumer never
+ * holds up the relay or the other subscribers; one that falls {@code bank.events.subscriber-capacity}
+ * events behind is closed and left to reconnect.
+ */
+@Component
+@Slf4j
+public class OperationEventBus implements OperationEventSink {
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final int capacity;
+
+    public OperationEventBus(@Value("${bank.events.subscriber-capacity:1000}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void publish(List<OperationEventDTO> events) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(events);
+        }
+    }
+
+    /**
+     * Delivers the events matching the filter to the consumer until the subscription is closed, the
+     * consumer throws or it falls behind; {@code onClose} runs once in all three cases.
+     */
+    public Subscription subscribe(Predicate<OperationEventDTO> filter, Consumer<OperationEventDTO> consumer, Runnable onClose) {
+        Subscription subscription = new Subscription(filter, consumer, onClose);
+        subscriptions.add(subscription);
+        subscription.thread = Thread.ofVirtual().name("event-subscriber").start(subscription::drain);
+        return subscription;
+    }
+
+    public int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Predicate<OperationEventDTO> filter;
+        private final Consumer<OperationEventDTO> consumer;
+        private final Runnable onClose;
+        private final BlockingQueue<OperationEventDTO> queue = new ArrayBlockingQueue<>(capacity);
+        private volatile Thread thread;
+        private volatile boolean closed;
+
+        private Subscription(Predicate<OperationEventDTO> filter, Consumer<OperationEventDTO> consumer, Runnable onClose) {
+            this.filter = filter;
+            this.consumer = consumer;
+            this.onClose = onClose;
+        }
+
+        private void offer(List<OperationEventDTO> events) {
+            for (OperationEventDTO event : events) {
+                if (filter.test(event) && !queue.offer(event)) {
+                    log.debug("Event subscriber fell {} events behind, closing it", capacity);
+                    close();
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    consumer.accept(queue.take());
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (RuntimeException e) {
+                log.debug("Event subscriber failed, closing it", e);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (subscriptions.remove(this)) {
+                Thread drainer = thread;
+                if (drainer != null && drainer != Thread.currentThread()) {
+                    drainer.interrupt();
+                }
+                onClose.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.OperationEventDTO;
+
+import java.util.List;
+
+/**
+ * A destination of the account operation events; every bean implementing it gets each batch from
+ * the {@link OutboxRelay}. A batch that fails is delivered again, so a sink may see an event twice.
+ */
+public interface OperationEventSink {
+    void publish(List<OperationEventDTO> events) throws Exception;
+}
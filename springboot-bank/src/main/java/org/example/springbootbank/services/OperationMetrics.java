@@ -0,0 +1,77 @@
+package org.example.springbootbank.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the banking operations into {@code bank.operations}, tagged by operation, outcome
+ * ({@code success}, {@code rejected} for the business exceptions, {@code error} otherwise) and
+ * exception class. The timers are looked up once per tag combination, so recording an
+ * operation does not allocate.
+ */
+@Component
+public class OperationMetrics {
+    public static final String TIMER = "bank.operations";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Map<Class<?>, Timer>> failureTimers = new ConcurrentHashMap<>();
+
+    public OperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T record(String operation, Operation<T> action) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        long start = System.nanoTime();
+        try {
+            T result = action.run();
+            successTimer(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Exception e) {
+            failureTimer(operation, e.getClass()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    /** {@link #record} for the read operations, which never check a balance. */
+    public <T> T recordQuery(String operation, Operation<T> query) throws BankAccountNotFoundException {
+        try {
+            return record(operation, query);
+        } catch (BalanceNotSufficientException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Timer successTimer(String operation) {
+        return successTimers.computeIfAbsent(operation, key -> timer(operation, "success", "none"));
+    }
+
+    private Timer failureTimer(String operation, Class<?> exceptionClass) {
+        return failureTimers.computeIfAbsent(operation, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(exceptionClass, key -> timer(operation,
+                        exceptionClass == BankAccountNotFoundException.class
+                                || exceptionClass == BalanceNotSufficientException.class ? "rejected" : "error",
+                        exceptionClass.getSimpleName()));
+    }
+
+    private Timer timer(String operation, String outcome, String exception) {
+        return Timer.builder(TIMER)
+                .description("Banking operations, from the service call to its commit")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("exception", exception)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    public interface Operation<T> {
+        T run() throws BankAccountNotFoundException, BalanceNotSufficientException;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OutboxEvent;
+import org.example.springbootbank.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes an {@link OutboxEvent} per account operation: called by the {@link LedgerWriter} in the
+ * transaction that writes the operations, so an event exists if and only if its operation committed.
+ */
+@Component
+public class OutboxRecorder {
+    private final OutboxEventRepository outboxEventRepository;
+
+    public OutboxRecorder(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /** @param operations saved already, so their ids are assigned */
+    void record(List<AccountOperation> operations) {
+        List<OutboxEvent> events = new ArrayList<>(operations.size());
+        for (AccountOperation operation : operations) {
+            events.add(new OutboxEvent(null, operation.getId(), operation.getBankAccount().getId(), operation.getType(),
+                    operation.getAmount(), Money.currency(operation.getBankAccount().getCurrency()),
+                    operation.getDescription(), operation.getDate()));
+        }
+        outboxEventRepository.saveAll(events);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.dtos.OperationEventDTO;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OutboxEvent;
+import org.example.springbootbank.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes the outbox to every {@link OperationEventSink}: reads the oldest events in batches of
+ * {@code bank.events.batch-size}, hands each batch to the sinks and deletes it once all of them took it.
+ * A sink that fails stops the run and the batch is published again on the next one, so delivery is
+ * at least once. Runs every {@code bank.events.poll-interval} on a thread of its own, so the long
+ * scheduled jobs do not hold delivery back; only one relay should be enabled per database.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OperationEventSink> sinks;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ScheduledExecutorService poller;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       List<OperationEventSink> sinks,
+                       @Value("${bank.events.batch-size:500}") int batchSize,
+                       @Value("${bank.events.poll-interval:PT0.2S}") Duration pollInterval,
+                       @Value("${bank.events.relay-enabled:true}") boolean enabled) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sinks = sinks;
+        this.batchSize = batchSize;
+        if (enabled) {
+            this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "outbox-relay");
+                thread.setDaemon(true);
+                return thread;
+            });
+            poller.scheduleWithFixedDelay(this::scheduledRelay, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.poller = null;
+        }
+    }
+
+    private void scheduledRelay() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            // the database may be unreachable for a while: a failed run must not cancel the next ones
+            log.warn("Outbox relay run failed", e);
+        }
+    }
+
+    /** Publishes until the outbox is empty or a sink fails; returns the number of events published. */
+    public int relay() {
+        lock.lock();
+        try {
+            int published = 0;
+            List<OutboxEvent> batch;
+            do {
+                batch = outboxEventRepository.findOldest(PageRequest.of(0, batchSize));
+                if (batch.isEmpty() || !publish(batch)) {
+                    break;
+                }
+                outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+                published += batch.size();
+            } while (batch.size() == batchSize);
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean publish(List<OutboxEvent> batch) {
+        List<OperationEventDTO> events = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            events.add(new OperationEventDTO(event.getId(), event.getOperationId(), event.getAccountId(), event.getType(),
+                    Money.toMajor(event.getAmount(), event.getCurrency()), event.getCurrency(),
+                    event.getDescription(), event.getDate()));
+        }
+        for (OperationEventSink sink : sinks) {
+            try {
+                sink.publish(events);
+            } catch (Exception e) {
+                log.warn("Event sink {} failed, the batch will be published again", sink.getClass().getSimpleName(), e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (poller != null) {
+            poller.shutdown();
+            poller.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
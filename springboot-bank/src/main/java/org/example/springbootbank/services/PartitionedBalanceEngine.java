@@ -0,0 +1,367 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.BankAccountNotFoundException;
+import org.example.springbootbank.repository.BalanceState;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Optional single-writer engine for hot accounts, enabled with {@code bank.engine.partitions} &gt; 0.
+ * Accounts are hashed onto partitions, each owning its accounts' balances in memory and applying
+ * their commands one after the other on a dedicated thread fed by a lock-free queue. A worker drains
+ * up to {@code bank.engine.batch-size} commands, checks and applies them in memory, then journals all
+ * their postings through the {@link LedgerWriter} in one transaction, under the account locks of the
+ * {@link BalanceMutationEngine} so snapshot rebuilds and reconciliation still see whole batches.
+ * Callers are answered once that transaction commits; a failed journal write fails its batch and
+ * drops the accounts it touched from memory, to be read again from the database.
+ * A transfer runs on the source's partition, which journals both sides; a destination owned by
+ * another partition is told after the commit, along with the version the commit gave its row, so a
+ * balance read from the database after that commit does not count the transfer twice.
+ * Balances are loaded from the database at startup and, for accounts opened since, on first use.
+ */
+@Component
+@Slf4j
+public class PartitionedBalanceEngine {
+    private static final int LOAD_BATCH = 1000;
+
+    private final BankAccountRepository bankAccountRepository;
+    private final LedgerWriter ledgerWriter;
+    private final BalanceMutationEngine balanceMutationEngine;
+    private final Partition[] partitions;
+    private final int batchSize;
+    /** Currencies of the accounts seen so far: a transfer needs its destination's, and they never change. */
+    private final Map<String, String> currencies = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public PartitionedBalanceEngine(BankAccountRepository bankAccountRepository,
+                                    LedgerWriter ledgerWriter,
+                                    BalanceMutationEngine balanceMutationEngine,
+                                    @Value("${bank.engine.partitions:0}") int partitionCount,
+                                    @Value("${bank.engine.batch-size:500}") int batchSize) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.ledgerWriter = ledgerWriter;
+        this.balanceMutationEngine = balanceMutationEngine;
+        this.batchSize = batchSize;
+        this.partitions = new Partition[Math.max(0, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition();
+            partitions[i].thread = new Thread(partitions[i]::run, "balance-partition-" + i);
+            partitions[i].thread.setDaemon(true);
+            partitions[i].thread.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return partitions.length > 0;
+    }
+
+    /** Loads every balance before the command line runners and the first requests get in. */
+    @EventListener(ApplicationStartedEvent.class)
+    public void load() {
+        if (!isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int loaded = 0;
+        String after = "";
+        List<BalanceState> batch;
+        do {
+            batch = bankAccountRepository.findBalanceStatesAfter(after, PageRequest.of(0, LOAD_BATCH));
+            Map<Partition, List<BalanceState>> byPartition = new HashMap<>();
+            for (BalanceState state : batch) {
+                byPartition.computeIfAbsent(partitionOf(state.id()), partition -> new ArrayList<>()).add(state);
+            }
+            byPartition.forEach((partition, states) -> partition.submit(new Load(states)));
+            loaded += batch.size();
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == LOAD_BATCH);
+        log.info("Balance engine loaded {} accounts into {} partitions in {} ms",
+                loaded, partitions.length, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void debit(String accountId, double amount, String description) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        await(submit(new Debit(accountId, amount, description, new CompletableFuture<>())));
+    }
+
+    public void credit(String accountId, double amount, String description) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        await(submit(new Credit(accountId, amount, description, new CompletableFuture<>())));
+    }
+
+    public void transfer(String accountIdSource, String accountIdDestination, double amount) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        await(submitTransfer(accountIdSource, accountIdDestination, amount, null));
+    }
+
+    /** Queues a transfer without waiting: the future completes once it is committed, or with the reason it was rejected. */
+    public CompletableFuture<Void> submitTransfer(String accountIdSource, String accountIdDestination, double amount, String description) {
+        return submit(new Transfer(accountIdSource, accountIdDestination, amount, description, new CompletableFuture<>()));
+    }
+
+    private CompletableFuture<Void> submit(Mutation mutation) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("The balance engine is disabled");
+        }
+        if (!running) {
+            throw new IllegalStateException("The balance engine is stopped");
+        }
+        partitionOf(mutation.accountId()).submit(mutation);
+        return mutation.ack();
+    }
+
+    private static void await(CompletableFuture<Void> ack) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        try {
+            ack.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the balance engine", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BankAccountNotFoundException notFound) {
+                throw notFound;
+            }
+            if (cause instanceof BalanceNotSufficientException notSufficient) {
+                throw notSufficient;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Partition partitionOf(String accountId) {
+        int h = accountId.hashCode();
+        h ^= (h >>> 16);
+        return partitions[Math.floorMod(h, partitions.length)];
+    }
+
+    private String currencyOf(String accountId) throws BankAccountNotFoundException {
+        String currency = currencies.get(accountId);
+        if (currency == null) {
+            currency = bankAccountRepository.findCurrency(accountId)
+                    .orElseThrow(() -> new BankAccountNotFoundException("Bank account not found"));
+            currencies.put(accountId, currency);
+        }
+        return currency;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Partition partition : partitions) {
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            partition.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    /** One worker: only its thread reads or writes {@link #balances}. */
+    private final class Partition {
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final Map<String, Balance> balances = new HashMap<>();
+        private Thread thread;
+
+        void submit(Command command) {
+            queue.offer(command);
+            LockSupport.unpark(thread);
+        }
+
+        void run() {
+            List<Command> batch = new ArrayList<>(batchSize);
+            while (running) {
+                Command command;
+                while (batch.size() < batchSize && (command = queue.poll()) != null) {
+                    batch.add(command);
+                }
+                if (batch.isEmpty()) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                try {
+                    process(batch);
+                } catch (RuntimeException e) {
+                    log.error("Balance partition failed on a batch of {} commands", batch.size(), e);
+                } finally {
+                    batch.clear();
+                }
+            }
+            Command command;
+            while ((command = queue.poll()) != null) {
+                if (command instanceof Mutation mutation) {
+                    mutation.ack().completeExceptionally(new IllegalStateException("The balance engine is stopped"));
+                }
+            }
+        }
+
+        private void process(List<Command> batch) {
+            List<LedgerWriter.Posting> postings = new ArrayList<>();
+            List<Mutation> accepted = new ArrayList<>();
+            List<Applied> forwarded = new ArrayList<>();
+            for (Command command : batch) {
+                switch (command) {
+                    case Load load -> load.states().forEach(state -> balances.putIfAbsent(state.id(), Balance.of(state)));
+                    case Applied applied -> {
+                        Balance balance = balances.get(applied.accountId());
+                        // not loaded yet, or loaded after the commit: the database balance has it already
+                        if (balance != null && applied.version() > balance.loadedVersion) {
+                            balance.amount = Money.add(balance.amount, applied.amount());
+                        }
+                    }
+                    case Mutation mutation -> {
+                        try {
+                            apply(mutation, postings, forwarded);
+                            accepted.add(mutation);
+                        } catch (Exception e) {
+                            mutation.ack().completeExceptionally(e);
+                        }
+                    }
+                }
+            }
+            if (postings.isEmpty()) {
+                return;
+            }
+            Set<String> accountIds = new LinkedHashSet<>();
+            postings.forEach(posting -> accountIds.add(posting.accountId()));
+            Map<String, Long> versions;
+            try {
+                versions = balanceMutationEngine.whileLocked(() -> ledgerWriter.writeNow(postings), accountIds.toArray(String[]::new));
+            } catch (RuntimeException e) {
+                accountIds.forEach(balances::remove);
+                accepted.forEach(mutation -> mutation.ack().completeExceptionally(e));
+                return;
+            }
+            for (Applied applied : forwarded) {
+                partitionOf(applied.accountId()).submit(new Applied(applied.accountId(), applied.amount(), versions.get(applied.accountId())));
+            }
+            accepted.forEach(mutation -> mutation.ack().complete(null));
+        }
+
+        private void apply(Mutation mutation, List<LedgerWriter.Posting> postings, List<Applied> forwarded)
+                throws BankAccountNotFoundException, BalanceNotSufficientException {
+            switch (mutation) {
+                case Debit debit -> {
+                    Balance balance = balance(debit.accountId());
+                    long amount = Money.toMinor(debit.amount(), balance.currency);
+                    balance.withdraw(amount);
+                    postings.add(LedgerWriter.Posting.debit(debit.accountId(), amount, debit.description()));
+                }
+                case Credit credit -> {
+                    Balance balance = balance(credit.accountId());
+                    long amount = Money.toMinor(credit.amount(), balance.currency);
+                    balance.amount = Money.add(balance.amount, amount);
+                    postings.add(LedgerWriter.Posting.credit(credit.accountId(), amount, credit.description()));
+                }
+                case Transfer transfer -> {
+                    Balance source = balance(transfer.accountId());
+                    boolean local = partitionOf(transfer.accountIdDestination()) == this;
+                    Balance destination = local ? balance(transfer.accountIdDestination()) : null;
+                    String destinationCurrency = local ? destination.currency : currencyOf(transfer.accountIdDestination());
+                    if (!destinationCurrency.equals(source.currency)) {
+                        throw new IllegalArgumentException("Transfers between accounts in different currencies are not supported");
+                    }
+                    long amount = Money.toMinor(transfer.amount(), source.currency);
+                    source.withdraw(amount);
+                    if (local) {
+                        destination.amount = Money.add(destination.amount, amount);
+                    } else {
+                        forwarded.add(new Applied(transfer.accountIdDestination(), amount, null));
+                    }
+                    postings.add(LedgerWriter.Posting.debit(transfer.accountId(), amount, transfer.description() != null
+                            ? transfer.description() : "Transfer to " + transfer.accountIdDestination()));
+                    postings.add(LedgerWriter.Posting.credit(transfer.accountIdDestination(), amount, transfer.description() != null
+                            ? transfer.description() : "transfer from " + transfer.accountId()));
+                }
+            }
+        }
+
+        private Balance balance(String accountId) throws BankAccountNotFoundException {
+            Balance balance = balances.get(accountId);
+            if (balance == null) {
+                List<BalanceState> states = bankAccountRepository.findBalanceStates(List.of(accountId));
+                if (states.isEmpty()) {
+                    throw new BankAccountNotFoundException("Bank account not found");
+                }
+                balance = Balance.of(states.get(0));
+                balances.put(accountId, balance);
+            }
+            currencies.putIfAbsent(accountId, balance.currency);
+            return balance;
+        }
+    }
+
+    /** An account's balance as its partition sees it, including the commands of the batch in progress. */
+    private static final class Balance {
+        private long amount;
+        private final String currency;
+        /** Row version the balance was read at; later commits are only counted when reported. */
+        private final long loadedVersion;
+
+        private Balance(long amount, String currency, long loadedVersion) {
+            this.amount = amount;
+            this.currency = currency;
+            this.loadedVersion = loadedVersion;
+        }
+
+        static Balance of(BalanceState state) {
+            return new Balance(state.balance(), Money.currency(state.currency()), state.version() == null ? 0 : state.version());
+        }
+
+        void withdraw(long amount) throws BalanceNotSufficientException {
+            if (this.amount < amount) {
+                throw new BalanceNotSufficientException("Insufficient balance");
+            }
+            this.amount = Money.subtract(this.amount, amount);
+        }
+    }
+
+    private sealed interface Command permits Load, Applied, Mutation {
+    }
+
+    private record Load(List<BalanceState> states) implements Command {
+    }
+
+    /** Credit of a transfer journaled by another partition, committed at {@code version} of the account row. */
+    private record Applied(String accountId, long amount, Long version) implements Command {
+    }
+
+    private sealed interface Mutation extends Command permits Debit, Credit, Transfer {
+        String accountId();
+
+        CompletableFuture<Void> ack();
+    }
+
+    private record Debit(String accountId, double amount, String description, CompletableFuture<Void> ack) implements Mutation {
+    }
+
+    private record Credit(String accountId, double amount, String description, CompletableFuture<Void> ack) implements Mutation {
+    }
+
+    /** Routed by its source account. */
+    private record Transfer(String accountId, String accountIdDestination, double amount, String description,
+                            CompletableFuture<Void> ack) implements Mutation {
+    }
+}
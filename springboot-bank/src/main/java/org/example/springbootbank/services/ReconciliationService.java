@@ -0,0 +1,216 @@
+package org.example.springbootbank.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.archive.ArchiveView;
+import org.example.springbootbank.archive.OperationArchive;
+import org.example.springbootbank.dtos.ReconciliationMismatchDTO;
+import org.example.springbootbank.dtos.ReconciliationReportDTO;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountBalance;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.example.springbootbank.repository.LedgerEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks every account against its ledger: balance = opening balance + credits - debits.
+ * Accounts are read in keyset partitions together with the operations of the same id range, so
+ * memory is bounded by one partition. The operations of a partition are flattened into primitive
+ * arrays and summed by a fork-join task per slice into per-account {@code long[]} accumulators of minor units,
+ * so a balance matches its ledger exactly or not at all. Archived operations count through the net
+ * amount their segments index per account, without reading them.
+ * A mismatch is only reported once it is confirmed under the account's lock, which rules out a
+ * posting committing between the two reads.
+ * Runs on {@code bank.reconciliation.cron} and on demand; one run at a time.
+ */
+@Service
+@Slf4j
+public class ReconciliationService {
+    private static final int SLICE = 10_000;
+
+    private final BankAccountRepository bankAccountRepository;
+    private final AccountOperationRepository accountOperationRepository;
+    private final BalanceMutationEngine balanceMutationEngine;
+    private final OperationArchive operationArchive;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ForkJoinPool forkJoinPool;
+    private final int partitionSize;
+    private final int maxReportedMismatches;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconciliationReportDTO lastReport;
+
+    public ReconciliationService(BankAccountRepository bankAccountRepository,
+                                 AccountOperationRepository accountOperationRepository,
+                                 BalanceMutationEngine balanceMutationEngine,
+                                 OperationArchive operationArchive,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${bank.reconciliation.parallelism:0}") int parallelism,
+                                 @Value("${bank.reconciliation.partition-size:1000}") int partitionSize,
+                                 @Value("${bank.reconciliation.max-reported-mismatches:100}") int maxReportedMismatches) {
+        this.bankAccountRepository = bankAccountRepository;
+        this.accountOperationRepository = accountOperationRepository;
+        this.balanceMutationEngine = balanceMutationEngine;
+        this.operationArchive = operationArchive;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.partitionSize = partitionSize;
+        this.maxReportedMismatches = maxReportedMismatches;
+    }
+
+    @Scheduled(cron = "${bank.reconciliation.cron:-}")
+    public void scheduledReconcile() {
+        ReconciliationReportDTO report = reconcile();
+        if (report.getMismatches() > 0) {
+            log.warn("Reconciliation found {} accounts out of step with their ledger", report.getMismatches());
+        }
+    }
+
+    public ReconciliationReportDTO lastReport() {
+        return lastReport;
+    }
+
+    public ReconciliationReportDTO reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        try {
+            long start = System.nanoTime();
+            ReconciliationReportDTO report = new ReconciliationReportDTO();
+            report.setStartedAt(new Date());
+            report.setMismatchDetails(new ArrayList<>());
+            String after = "";
+            List<AccountBalance> partition;
+            do {
+                partition = bankAccountRepository.findBalancesAfter(after, PageRequest.of(0, partitionSize));
+                if (partition.isEmpty()) {
+                    break;
+                }
+                reconcilePartition(after, partition, report);
+                after = partition.get(partition.size() - 1).id();
+            } while (partition.size() == partitionSize);
+            report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            log.info("Reconciled {} accounts and {} operations in {} ms, {} mismatches",
+                    report.getAccounts(), report.getOperations(), report.getElapsedMillis(), report.getMismatches());
+            lastReport = report;
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void reconcilePartition(String after, List<AccountBalance> partition, ReconciliationReportDTO report) {
+        String last = partition.get(partition.size() - 1).id();
+        ArchiveView archive = operationArchive.view();
+        List<LedgerEntry> entries = readOnlyTransactionTemplate.execute(status -> accountOperationRepository.findLedgerEntries(after, last, archive.horizon()));
+
+        Map<String, Integer> indexes = new HashMap<>(partition.size() * 2);
+        for (int i = 0; i < partition.size(); i++) {
+            indexes.put(partition.get(i).id(), i);
+        }
+        int[] accountIndexes = new int[entries.size()];
+        long[] amounts = new long[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            LedgerEntry entry = entries.get(i);
+            accountIndexes[i] = indexes.get(entry.accountId());
+            amounts[i] = entry.type() == OperationType.CREDIT ? entry.amount() : -entry.amount();
+        }
+        long[] nets = forkJoinPool.invoke(new NetTask(accountIndexes, amounts, 0, amounts.length, partition.size()));
+        if (!archive.isEmpty()) {
+            for (int i = 0; i < partition.size(); i++) {
+                nets[i] = Money.add(nets[i], archive.net(partition.get(i).id()));
+            }
+        }
+
+        report.setAccounts(report.getAccounts() + partition.size());
+        report.setOperations(report.getOperations() + entries.size());
+        for (int i = 0; i < partition.size(); i++) {
+            AccountBalance account = partition.get(i);
+            if (Money.add(account.openingBalance(), nets[i]) != account.balance()) {
+                confirmMismatch(account.id(), report);
+            }
+        }
+    }
+
+    private void confirmMismatch(String accountId, ReconciliationReportDTO report) {
+        ReconciliationMismatchDTO mismatch = balanceMutationEngine.whileLocked(() -> {
+            List<AccountBalance> current = bankAccountRepository.findBalances(List.of(accountId));
+            if (current.isEmpty()) {
+                return null;
+            }
+            AccountBalance account = current.get(0);
+            ArchiveView archive = operationArchive.view();
+            long expected = Money.add(account.openingBalance(),
+                    Money.add(archive.net(accountId), accountOperationRepository.netSince(accountId, archive.horizon())));
+            return expected != account.balance()
+                    ? new ReconciliationMismatchDTO(accountId, Money.toMajor(account.balance(), account.currency()),
+                            Money.toMajor(expected, account.currency()),
+                            Money.toMajor(Money.subtract(account.balance(), expected), account.currency()))
+                    : null;
+        }, accountId);
+        if (mismatch != null) {
+            report.setMismatches(report.getMismatches() + 1);
+            if (report.getMismatchDetails().size() < maxReportedMismatches) {
+                report.getMismatchDetails().add(mismatch);
+            }
+        }
+    }
+
+    /** Sums a slice of signed amounts into one accumulator per account of the partition. */
+    private static class NetTask extends RecursiveTask<long[]> {
+        private final int[] accountIndexes;
+        private final long[] amounts;
+        private final int from;
+        private final int to;
+        private final int accounts;
+
+        NetTask(int[] accountIndexes, long[] amounts, int from, int to, int accounts) {
+            this.accountIndexes = accountIndexes;
+            this.amounts = amounts;
+            this.from = from;
+            this.to = to;
+            this.accounts = accounts;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= SLICE) {
+                long[] nets = new long[accounts];
+                for (int i = from; i < to; i++) {
+                    nets[accountIndexes[i]] = Money.add(nets[accountIndexes[i]], amounts[i]);
+                }
+                return nets;
+            }
+            int middle = (from + to) >>> 1;
+            NetTask left = new NetTask(accountIndexes, amounts, from, middle, accounts);
+            left.fork();
+            long[] nets = new NetTask(accountIndexes, amounts, middle, to, accounts).compute();
+            long[] leftNets = left.join();
+            for (int i = 0; i < accounts; i++) {
+                nets[i] = Money.add(nets[i], leftNets[i]);
+            }
+            return nets;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        forkJoinPool.shutdownNow();
+    }
+}
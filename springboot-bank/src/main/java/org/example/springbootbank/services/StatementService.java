@@ -0,0 +1,145 @@
+package org.example.springbootbank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.springbootbank.archive.ArchiveView;
+import org.example.springbootbank.archive.ArchivedOperation;
+import org.example.springbootbank.archive.OperationArchive;
+import org.example.springbootbank.dtos.StatementBucket;
+import org.example.springbootbank.dtos.StatementLineDTO;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.OperationAggregate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statement summaries: count, total, smallest and largest amount of an account's operations per
+ * type and per day, month or year, each computed by one GROUP BY over the covering
+ * {@code (bank_account_id, date, type, amount)} index instead of loading the history.
+ * Operations are dated when they are posted, so buckets before the current one never change:
+ * that closed part of a range is cached, and only the current bucket is queried again.
+ * Days are calendar days in the JVM time zone, as for the daily snapshots. The part of a range before
+ * the archive horizon is summed from the archived operations, and a year spanning both is combined.
+ */
+@Service
+public class StatementService {
+    private final AccountOperationRepository accountOperationRepository;
+    private final OperationArchive operationArchive;
+    private final Cache<ClosedRange, List<StatementLineDTO>> closedRanges;
+
+    public StatementService(AccountOperationRepository accountOperationRepository,
+                            OperationArchive operationArchive,
+                            MeterRegistry meterRegistry,
+                            @Value("${bank.statements.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${bank.statements.cache.ttl:24h}") Duration ttl) {
+        this.accountOperationRepository = accountOperationRepository;
+        this.operationArchive = operationArchive;
+        this.closedRanges = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, closedRanges, "statements");
+    }
+
+    /** The lines of the days {@code from} to {@code to} included, by period then type; edge buckets are clipped to the range. */
+    public List<StatementLineDTO> statement(String accountId, LocalDate from, LocalDate to, StatementBucket bucket) {
+        LocalDate end = to.plusDays(1);
+        LocalDate current = bucketOf(LocalDate.now(), bucket);
+        List<StatementLineDTO> lines = new ArrayList<>();
+        LocalDate closedEnd = min(end, current);
+        if (from.isBefore(closedEnd)) {
+            lines.addAll(closedRanges.get(new ClosedRange(accountId, bucket, from, closedEnd),
+                    range -> aggregate(accountId, from, closedEnd, bucket)));
+        }
+        LocalDate openStart = max(from, current);
+        if (openStart.isBefore(end)) {
+            lines.addAll(aggregate(accountId, openStart, end, bucket));
+        }
+        return lines;
+    }
+
+    private List<StatementLineDTO> aggregate(String accountId, LocalDate from, LocalDate end, StatementBucket bucket) {
+        Date fromDate = DailyBalanceRecorder.startOf(from);
+        Date endDate = DailyBalanceRecorder.startOf(end);
+        ArchiveView archive = operationArchive.view();
+        Date tableFrom = archive.clip(fromDate);
+        List<OperationAggregate> aggregates = switch (bucket) {
+            case DAY -> accountOperationRepository.aggregateByDay(accountId, tableFrom, endDate);
+            case MONTH -> accountOperationRepository.aggregateByMonth(accountId, tableFrom, endDate);
+            case YEAR -> accountOperationRepository.aggregateByYear(accountId, tableFrom, endDate);
+        };
+        if (fromDate.before(archive.horizon())) {
+            aggregates = withArchived(aggregates, archive, accountId, fromDate, endDate, bucket);
+        }
+        return aggregates.stream()
+                .map(aggregate -> new StatementLineDTO(accountId,
+                        LocalDate.of(aggregate.year(), aggregate.month(), aggregate.day()),
+                        aggregate.type(),
+                        aggregate.operationCount(),
+                        Money.toMajor(aggregate.total(), aggregate.currency()),
+                        Money.toMajor(aggregate.minAmount(), aggregate.currency()),
+                        Money.toMajor(aggregate.maxAmount(), aggregate.currency())))
+                .sorted(Comparator.comparing(StatementLineDTO::getPeriod).thenComparing(StatementLineDTO::getType))
+                .toList();
+    }
+
+    private static List<OperationAggregate> withArchived(List<OperationAggregate> aggregates, ArchiveView archive, String accountId,
+                                                         Date from, Date end, StatementBucket bucket) {
+        Map<BucketKey, OperationAggregate> merged = new LinkedHashMap<>();
+        String currency = Money.currency(archive.currency(accountId));
+        for (ArchivedOperation operation : archive.operations(accountId, from, end)) {
+            LocalDate period = bucketOf(DailyBalanceRecorder.dayOf(operation.date()), bucket);
+            merged.merge(new BucketKey(operation.type(), period),
+                    new OperationAggregate(operation.type(), period.getYear(), period.getMonthValue(), period.getDayOfMonth(),
+                            currency, 1, operation.amount(), operation.amount(), operation.amount()),
+                    StatementService::combine);
+        }
+        for (OperationAggregate aggregate : aggregates) {
+            merged.merge(new BucketKey(aggregate.type(), LocalDate.of(aggregate.year(), aggregate.month(), aggregate.day())),
+                    aggregate, StatementService::combine);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static OperationAggregate combine(OperationAggregate a, OperationAggregate b) {
+        return new OperationAggregate(a.type(), a.year(), a.month(), a.day(), a.currency(),
+                a.operationCount() + b.operationCount(), Money.add(a.total(), b.total()),
+                Math.min(a.minAmount(), b.minAmount()), Math.max(a.maxAmount(), b.maxAmount()));
+    }
+
+    static LocalDate bucketOf(LocalDate day, StatementBucket bucket) {
+        return switch (bucket) {
+            case DAY -> day;
+            case MONTH -> day.withDayOfMonth(1);
+            case YEAR -> day.withDayOfYear(1);
+        };
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private record BucketKey(OperationType type, LocalDate period) {
+    }
+
+    private record ClosedRange(String accountId, StatementBucket bucket, LocalDate from, LocalDate end) {
+    }
+}
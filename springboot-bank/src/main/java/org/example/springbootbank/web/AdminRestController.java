@@ -0,0 +1,65 @@
+package org.example.springbootbank.web;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.springbootbank.dtos.ArchiveReportDTO;
+import org.example.springbootbank.dtos.InterestAccrualReportDTO;
+import org.example.springbootbank.dtos.ReconciliationReportDTO;
+import org.example.springbootbank.dtos.SnapshotRebuildDTO;
+import org.example.springbootbank.services.ArchivalService;
+import org.example.springbootbank.services.BalanceSnapshotService;
+import org.example.springbootbank.services.InterestAccrualService;
+import org.example.springbootbank.services.ReconciliationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+@RestController
+@AllArgsConstructor
+@Slf4j
+@CrossOrigin("*")
+public class AdminRestController {
+    private BalanceSnapshotService balanceSnapshotService;
+    private ReconciliationService reconciliationService;
+    private InterestAccrualService interestAccrualService;
+    private ArchivalService archivalService;
+
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/admin/snapshots/rebuild")
+    public SnapshotRebuildDTO rebuildSnapshots() throws InterruptedException {
+        log.info("Rebuilding the daily balance snapshots");
+        return balanceSnapshotService.rebuild();
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/admin/reconciliation")
+    public ReconciliationReportDTO reconcile() {
+        log.info("Reconciling balances against the ledger");
+        return reconciliationService.reconcile();
+    }
+
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @GetMapping("/admin/reconciliation")
+    public ReconciliationReportDTO lastReconciliation() {
+        return reconciliationService.lastReport();
+    }
+
+    /** Credits the interest of the period ending on {@code period}, resuming its run if it was interrupted. */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/admin/interest")
+    public InterestAccrualReportDTO accrueInterest(@RequestParam(name = "period") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate period) throws InterruptedException {
+        log.info("Accruing the interest of the period ending {}", period);
+        return interestAccrualService.accrue(period);
+    }
+
+    /** Moves the months older than {@code bank.archive.age} from the table to the archive. */
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    @PostMapping("/admin/archive")
+    public ArchiveReportDTO archive() throws IOException, InterruptedException {
+        log.info("Archiving old operations");
+        return archivalService.archive();
+    }
+}
@@ -1,63 +1,252 @@
 package org.example.springbootbank.web;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.springbootbank.dtos.*;
 import org.example.springbootbank.exceptions.BalanceNotSufficientException;
 import org.example.springbootbank.exceptions.BankAccountNotFoundException;
 import org.example.springbootbank.services.BankAccountServiceImpl;
+import org.example.springbootbank.services.IdempotencyStore;
+import org.example.springbootbank.services.OperationEventBus;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 @Slf4j
 @RestController
 @AllArgsConstructor
 @CrossOrigin("*")
 public class BankAccountRestController {
+    /** Lets a client retry a money movement without applying it twice. */
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    /** An event stream is closed after this long; EventSource clients reconnect on their own. */
+    private static final long EVENT_STREAM_TIMEOUT = Duration.ofMinutes(30).toMillis();
+
     BankAccountServiceImpl bankAccountService;
+    ObjectMapper objectMapper;
+    IdempotencyStore idempotencyStore;
+    OperationEventBus operationEventBus;
 
     @GetMapping("/accounts/{accountId}")
     public BankAccountDTO getBankAccount(@PathVariable String accountId) throws BankAccountNotFoundException {
         return bankAccountService.getBankAccount(accountId);
     }
     @GetMapping("/accounts")
-    public List<BankAccountDTO> bankAccounts() {
-        return bankAccountService.bankAccountList();
+    public List<BankAccountDTO> bankAccounts(@RequestParam(name = "page", defaultValue = "0") int page,
+                                             @RequestParam(name = "size", defaultValue = "100") int size) {
+        return bankAccountService.bankAccountList(page, size);
     }
     @GetMapping("/accounts/{accountId}/history")
     public List<AccountOperationDTO> getAccountHistory(@PathVariable String accountId) throws BankAccountNotFoundException {
         return bankAccountService.getAccountHistory(accountId);
     }
 
+    @GetMapping("/accounts/{accountId}/balance")
+    public BalanceAtDTO getBalanceAt(@PathVariable String accountId,
+                                     @RequestParam(name = "at") Instant at) throws BankAccountNotFoundException {
+        return bankAccountService.getBalanceAt(accountId, at);
+    }
+
+    @GetMapping("/accounts/{accountId}/balances")
+    public List<DailyBalanceDTO> getDailyBalances(@PathVariable String accountId,
+                                                  @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                  @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return bankAccountService.getDailyBalances(accountId, from, to);
+    }
+
+    @GetMapping("/accounts/{accountId}/statement")
+    public List<StatementLineDTO> getStatement(@PathVariable String accountId,
+                                               @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                               @RequestParam(name = "bucket", defaultValue = "MONTH") StatementBucket bucket) {
+        return bankAccountService.getStatement(accountId, from, to, bucket);
+    }
+
+    /** Pushes the operations of one account, or of all of them without {@code accountId}, as they are posted. */
+    @GetMapping(value = "/accounts/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(name = "accountId", required = false) String accountId) {
+        SseEmitter emitter = new SseEmitter(EVENT_STREAM_TIMEOUT);
+        OperationEventBus.Subscription subscription = operationEventBus.subscribe(
+                event -> accountId == null || accountId.equals(event.getAccountId()),
+                event -> {
+                    try {
+                        emitter.send(SseEmitter.event().id(String.valueOf(event.getEventId())).name("operation").data(event));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    @GetMapping("/accounts/{accountId}/history/export")
+    public ResponseEntity<StreamingResponseBody> exportAccountHistory(
+            @PathVariable String accountId,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format) throws BankAccountNotFoundException {
+        bankAccountService.getBankAccount(accountId);
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(out -> writeCsv(accountId, out));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeNdjson(accountId, out));
+    }
+
+    private void writeNdjson(String accountId, OutputStream out) throws IOException {
+        try (SequenceWriter sequenceWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            bankAccountService.streamAccountHistory(accountId, op -> {
+                try {
+                    sequenceWriter.write(op);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(String accountId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,operationDate,amount,type,description\n");
+        bankAccountService.streamAccountHistory(accountId, op -> {
+            try {
+                writer.write(String.valueOf(op.getId()));
+                writer.write(',');
+                writer.write(op.getOperationDate() == null ? "" : op.getOperationDate().toInstant().toString());
+                writer.write(',');
+                writer.write(String.valueOf(op.getAmount()));
+                writer.write(',');
+                writer.write(String.valueOf(op.getType()));
+                writer.write(',');
+                writer.write(csvField(op.getDescription()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
     @GetMapping("/accounts/{accountId}/pageOperations")
     public AccountHistoryDTO getAccountHistory(
             @PathVariable String accountId,
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "5") int size) throws BankAccountNotFoundException {
-        log.info("Retrieving paginated operation history for account: " + accountId);
+        log.debug("Retrieving paginated operation history for account {}", accountId);
         return bankAccountService.getAccountHistory(accountId, page, size);
     }
+
+    @GetMapping(value = "/accounts/{accountId}/pageOperations", params = "mode=keyset")
+    public AccountHistoryCursorDTO getAccountHistoryByCursor(
+            @PathVariable String accountId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "5") int size,
+            @RequestParam(name = "count", defaultValue = "false") boolean count) throws BankAccountNotFoundException {
+        return bankAccountService.getAccountHistoryByCursor(accountId, cursor, size, count);
+    }
     @PostMapping("/accounts/debit")
-    public DebitDTO debit(@RequestBody DebitDTO debitDTO) throws BankAccountNotFoundException, BalanceNotSufficientException {
-        log.info("Debiting account: " + debitDTO.getAccountId());
-        this.bankAccountService.debit(debitDTO.getAccountId(), debitDTO.getAmount(), debitDTO.getDescription());
-        return debitDTO;
+    public DebitDTO debit(@RequestBody DebitDTO debitDTO,
+                          @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        log.debug("Debiting account {}", debitDTO.getAccountId());
+        return idempotencyStore.execute(idempotencyKey, "debit", debitDTO, DebitDTO.class, () -> {
+            this.bankAccountService.debit(debitDTO.getAccountId(), debitDTO.getAmount(), debitDTO.getDescription());
+            return debitDTO;
+        });
     }
 
     @PostMapping("/accounts/credit")
-    public CreditDTO credit(@RequestBody CreditDTO creditDTO) throws BankAccountNotFoundException {
-        log.info("Crediting account: " + creditDTO.getAccountId());
-        this.bankAccountService.credit(creditDTO.getAccountId(), creditDTO.getAmount(), creditDTO.getDescription());
-        return creditDTO;
+    public CreditDTO credit(@RequestBody CreditDTO creditDTO,
+                            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws BankAccountNotFoundException {
+        log.debug("Crediting account {}", creditDTO.getAccountId());
+        try {
+            return idempotencyStore.execute(idempotencyKey, "credit", creditDTO, CreditDTO.class, () -> {
+                this.bankAccountService.credit(creditDTO.getAccountId(), creditDTO.getAmount(), creditDTO.getDescription());
+                return creditDTO;
+            });
+        } catch (BalanceNotSufficientException e) {
+            // a credit never checks the balance
+            throw new IllegalStateException(e);
+        }
     }
 
     @PostMapping("/accounts/transfer")
-    public void transfer(@RequestBody TransferDTO transferDTO) throws BankAccountNotFoundException, BalanceNotSufficientException {
-        log.info("Transferring from account: " + transferDTO.getAccountSource() + " to account: " + transferDTO.getAccountDestination());
-        this.bankAccountService.transfer(
-                transferDTO.getAccountSource(),
-                transferDTO.getAccountDestination(),
-                transferDTO.getAmount());
+    public void transfer(@RequestBody TransferDTO transferDTO,
+                         @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws BankAccountNotFoundException, BalanceNotSufficientException {
+        log.debug("Transferring from account {} to account {}", transferDTO.getAccountSource(), transferDTO.getAccountDestination());
+        idempotencyStore.execute(idempotencyKey, "transfer", transferDTO, Void.class, () -> {
+            this.bankAccountService.transfer(
+                    transferDTO.getAccountSource(),
+                    transferDTO.getAccountDestination(),
+                    transferDTO.getAmount());
+            return null;
+        });
+    }
+
+    @PostMapping(value = "/accounts/transfer/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkTransferResultDTO bulkTransfer(@RequestBody List<TransferDTO> transfers,
+                                              @RequestParam(name = "mode", defaultValue = "BEST_EFFORT") BulkTransferMode mode,
+                                              @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        log.info("Bulk transfer of {} movements ({})", transfers.size(), mode);
+        return applyBulkTransfer(transfers, mode, idempotencyKey);
+    }
+
+    @PostMapping(value = "/accounts/transfer/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkTransferResultDTO bulkTransferStream(InputStream body,
+                                                    @RequestParam(name = "mode", defaultValue = "BEST_EFFORT") BulkTransferMode mode,
+                                                    @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) throws IOException {
+        List<TransferDTO> transfers;
+        try (MappingIterator<TransferDTO> iterator = objectMapper.readerFor(TransferDTO.class).readValues(body)) {
+            transfers = iterator.readAll();
+        }
+        log.info("Bulk transfer of {} streamed movements ({})", transfers.size(), mode);
+        return applyBulkTransfer(transfers, mode, idempotencyKey);
+    }
+
+    private BulkTransferResultDTO applyBulkTransfer(List<TransferDTO> transfers, BulkTransferMode mode, String idempotencyKey) {
+        try {
+            // the mode is part of the operation: the same transfers in the other mode are another request
+            return idempotencyStore.execute(idempotencyKey, "bulk-transfer-" + mode, transfers, BulkTransferResultDTO.class,
+                    () -> bankAccountService.bulkTransfer(transfers, mode));
+        } catch (BankAccountNotFoundException | BalanceNotSufficientException e) {
+            // a bulk transfer reports these per transfer
+            throw new IllegalStateException(e);
+        }
     }
 
 }
@@ -19,9 +19,10 @@ public class CustomerRestController {
     private BankAccountService bankAccountService;
     @PostAuthorize("hasAuthority('SCOPE_USER')")
     @GetMapping("/customers")
-    public List<CustomerDTO> customers() {
-        log.info("Retrieving all customers");
-        return bankAccountService.listCustomers();
+    public List<CustomerDTO> customers(@RequestParam(name = "page", defaultValue = "0") int page,
+                                       @RequestParam(name = "size", defaultValue = "100") int size) {
+        log.info("Retrieving customers page {}", page);
+        return bankAccountService.listCustomers(page, size);
     }
     @PostAuthorize("hasAuthority('SCOPE_USER')")
     @GetMapping("/customers/{customerId}")
@@ -48,8 +49,10 @@ public class CustomerRestController {
     }
     @PostAuthorize("hasAuthority('SCOPE_USER')")
     @GetMapping("/customers/search")
-    public List<CustomerDTO> searchCustomers(@RequestParam(defaultValue = "") String keyword) {
-        log.info("Searching customers with keyword: " + keyword);
-        return bankAccountService.searchCustomers(keyword);
+    public List<CustomerDTO> searchCustomers(@RequestParam(defaultValue = "") String keyword,
+                                             @RequestParam(name = "page", defaultValue = "0") int page,
+                                             @RequestParam(name = "size", defaultValue = "100") int size) {
+        log.info("Searching customers with keyword: {}", keyword);
+        return bankAccountService.searchCustomers(keyword, page, size);
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package org.example.springbootbank.archive;
+
+import org.example.springbootbank.entities.OperationType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperationArchiveTests {
+    private static final YearMonth JANUARY = YearMonth.of(2024, 1);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void monthsSplitIntoPartsReadBackPerAccount() throws IOException {
+        // a 1-byte limit closes a part after every account
+        OperationArchive archive = new OperationArchive(directory.toString(), DataSize.ofBytes(1), Duration.ZERO);
+        archive.archive(JANUARY, sink -> {
+            for (String accountId : List.of("a", "b", "c")) {
+                for (int day = 1; day <= 3; day++) {
+                    sink.add(accountId, "MAD", operation(day * 10L, JANUARY, day, day == 2 ? OperationType.DEBIT : OperationType.CREDIT));
+                }
+            }
+        });
+        ArchiveView.ArchivedMonth february = archive.archive(JANUARY.plusMonths(1),
+                sink -> sink.add("b", "EUR", operation(100, JANUARY.plusMonths(1), 1, OperationType.CREDIT)));
+
+        ArchiveView view = archive.view();
+        assertEquals(3, view.months().get(0).parts().size());
+        assertEquals(1, february.operations());
+        assertEquals(february.end(), view.horizon());
+        assertEquals(List.of(10L, 20L, 30L, 100L), ids(view.operations("b")));
+        assertEquals(4, view.count("b"));
+        assertEquals(100 - 200 + 300 + 1000, view.net("b"));
+        assertEquals(-200 + 300, view.net("b", at(JANUARY, 2), at(JANUARY.plusMonths(1), 1)));
+        assertEquals(List.of(30L, 20L), ids(view.newestFirst("b", 1, 2)));
+        assertEquals(List.of(20L, 10L), ids(view.before("c", at(JANUARY, 3), 30, 5)));
+        assertEquals("EUR", view.currency("b"));
+        assertNull(view.currency("d"));
+        assertEquals(List.of(), view.operations("d"));
+        assertThrows(IllegalStateException.class, () -> archive.archive(JANUARY, sink -> { }));
+    }
+
+    @Test
+    void monthsNotFullyPublishedStayInvisible() throws IOException {
+        OperationArchive archive = new OperationArchive(directory.toString(), DataSize.ofBytes(1), Duration.ZERO);
+        archive.archive(JANUARY, sink -> {
+            sink.add("a", "MAD", operation(1, JANUARY, 1, OperationType.CREDIT));
+            sink.add("b", "MAD", operation(2, JANUARY, 1, OperationType.CREDIT));
+        });
+        // as if the last part of the month had not been moved in yet, and a stray file lay around
+        Files.delete(directory.resolve("operations-2024-01-1.seg"));
+        Files.writeString(directory.resolve("operations-2024-02-0.seg"), "not a segment");
+
+        ArchiveView view = archive.view();
+        assertTrue(view.isEmpty());
+        assertEquals(new Date(0), view.horizon());
+
+        // a new run replaces the parts left over; the unreadable month after it is skipped
+        archive.archive(JANUARY, sink -> sink.add("b", "MAD", operation(3, JANUARY, 1, OperationType.CREDIT)));
+        view = archive.view();
+        assertEquals(1, view.months().size());
+        assertEquals(List.of(3L), ids(view.operations("b")));
+        assertEquals(List.of(), view.operations("a"));
+    }
+
+    @Test
+    void operationsOutOfAccountOrderAreRefused() {
+        OperationArchive archive = new OperationArchive(directory.toString(), DataSize.ofMegabytes(1), Duration.ZERO);
+        assertThrows(IllegalStateException.class, () -> archive.archive(JANUARY, sink -> {
+            sink.add("b", "MAD", operation(1, JANUARY, 1, OperationType.CREDIT));
+            sink.add("a", "MAD", operation(2, JANUARY, 1, OperationType.CREDIT));
+        }));
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    private static ArchivedOperation operation(long id, YearMonth month, int day, OperationType type) {
+        return new ArchivedOperation(id, at(month, day), type, id * 10, type == OperationType.DEBIT ? null : "op " + id);
+    }
+
+    private static Date at(YearMonth month, int day) {
+        return Date.from(month.atDay(day).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static List<Long> ids(List<ArchivedOperation> operations) {
+        List<Long> ids = new ArrayList<>();
+        operations.forEach(operation -> ids.add(operation.id()));
+        return ids;
+    }
+}
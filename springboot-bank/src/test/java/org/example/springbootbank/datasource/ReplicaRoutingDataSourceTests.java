@@ -0,0 +1,121 @@
+package org.example.springbootbank.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two embedded databases stand in for the primary and its replica; each answers with its own name,
+ * and replication of the heartbeat is simulated by copying it by hand.
+ */
+class ReplicaRoutingDataSourceTests {
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("create table replica_heartbeat (id int primary key, beat_millis bigint not null)");
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routing.destroy();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAReplicaInTime() {
+        // no heartbeat seen yet: everything stays on the primary
+        routing.checkLag();
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        replicate(System.currentTimeMillis());
+        routing.checkLag();
+        assertEquals(1, routing.healthyReplicaCount());
+        assertEquals("replica", readOnly.execute(status -> node()));
+        assertEquals("primary", readWrite.execute(status -> node()));
+        assertEquals("primary", node());
+        assertEquals("primary", ReplicaRoutingDataSource.onPrimary(() -> readOnly.execute(status -> node())));
+        assertEquals(1L, new JdbcTemplate(primary).queryForObject("select count(*) from replica_heartbeat", Long.class));
+    }
+
+    @Test
+    void laggingReplicaIsSkippedUntilItCatchesUp() {
+        replicate(System.currentTimeMillis() - Duration.ofMinutes(1).toMillis());
+        routing.checkLag();
+        assertEquals(0, routing.healthyReplicaCount());
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        replicate(System.currentTimeMillis());
+        routing.checkLag();
+        assertEquals("replica", readOnly.execute(status -> node()));
+
+        replica.shutdown();
+        routing.checkLag();
+        assertEquals("primary", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void lagIsCheckedOnAThreadOfItsOwn() throws Exception {
+        replicate(System.currentTimeMillis() + Duration.ofMinutes(1).toMillis());
+        routing.startLagChecks(Duration.ofMillis(20));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (routing.healthyReplicaCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, routing.healthyReplicaCount());
+
+        // falls behind: dropped without anyone calling checkLag
+        replicate(System.currentTimeMillis() - Duration.ofMinutes(1).toMillis());
+        deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (routing.healthyReplicaCount() == 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, routing.healthyReplicaCount());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private void replicate(long beat) {
+        JdbcTemplate replicaTemplate = new JdbcTemplate(replica);
+        replicaTemplate.update("delete from replica_heartbeat");
+        replicaTemplate.update("insert into replica_heartbeat (id, beat_millis) values (1, ?)", beat);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        return database;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.springbootbank.entities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTests {
+
+    @Test
+    void convertsDecimalAmountsExactly() {
+        assertEquals(1007, Money.toMinor(10.07, "MAD"));
+        assertEquals(1007, Money.toMinor(10.07, null));
+        assertEquals(10, Money.toMinor(10, "JPY"));
+        assertEquals(10.07, Money.toMajor(1007, "MAD"));
+        // 0.1 + 0.2 drifts as doubles, not as minor units
+        assertEquals(0.3, Money.toMajor(Money.add(Money.toMinor(0.1, "MAD"), Money.toMinor(0.2, "MAD")), "MAD"));
+    }
+
+    @Test
+    void rejectsSubMinorAmountsAndOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(10.001, "MAD"));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(1.5, "JPY"));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(Double.NaN, "MAD"));
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(1e300, "MAD"));
+        assertThrows(ArithmeticException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Money.subtract(Long.MIN_VALUE, 1));
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.springbootbank.mappers;
+
+import org.example.springbootbank.dtos.AccountOperationDTO;
+import org.example.springbootbank.dtos.BankAccountDTO;
+import org.example.springbootbank.dtos.CurrentBankAccountDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.SavingBankAccountDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.AccountStatus;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.CurrentAccount;
+import org.example.springbootbank.entities.Customer;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.entities.SavingAccount;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The hand-written mapper must produce exactly what the former BeanUtils based one did, except for
+ * amounts, converted between minor units and decimal amounts of the currency, and the operation date,
+ * which BeanUtils never copied as the names differ.
+ */
+class BankAccountMapperImplTests {
+    private final BankAccountMapperImpl mapper = new BankAccountMapperImpl();
+
+    @Test
+    void mapsCustomerLikeBeanUtils() {
+        Customer customer = customer();
+        CustomerDTO expected = new CustomerDTO();
+        BeanUtils.copyProperties(customer, expected);
+
+        assertEquals(expected, mapper.fromCustomer(customer));
+    }
+
+    @Test
+    void mapsAccountsLikeBeanUtils() {
+        SavingAccount savingAccount = new SavingAccount(4.5, null);
+        fillAccount(savingAccount);
+        SavingBankAccountDTO expectedSaving = new SavingBankAccountDTO();
+        BeanUtils.copyProperties(savingAccount, expectedSaving);
+        expectedSaving.setBalance(15);
+        expectedSaving.setCustomerDTO(new CustomerDTO(7L, "khadija", "khadija@gmail.com"));
+        expectedSaving.setType("SavingAccount");
+
+        CurrentAccount currentAccount = new CurrentAccount(9000);
+        fillAccount(currentAccount);
+        CurrentBankAccountDTO expectedCurrent = new CurrentBankAccountDTO();
+        BeanUtils.copyProperties(currentAccount, expectedCurrent);
+        expectedCurrent.setBalance(15);
+        expectedCurrent.setCustomerDTO(new CustomerDTO(7L, "khadija", "khadija@gmail.com"));
+        expectedCurrent.setType("CurrentAccount");
+
+        SavingBankAccountDTO saving = (SavingBankAccountDTO) mapper.fromBankAccount(savingAccount);
+        CurrentBankAccountDTO current = (CurrentBankAccountDTO) mapper.fromBankAccount(currentAccount);
+        // Lombok equals on the subclasses ignores the inherited fields, compare them one by one
+        assertSameAccount(expectedSaving, saving);
+        assertEquals(expectedSaving.getInterestRate(), saving.getInterestRate());
+        assertSameAccount(expectedCurrent, current);
+        assertEquals(expectedCurrent.getOverDraft(), current.getOverDraft());
+    }
+
+    @Test
+    void mapsAccountOperationLikeBeanUtils() {
+        AccountOperation accountOperation = new AccountOperation(42L, new Date(), 12050, OperationType.DEBIT, null, "rent");
+        AccountOperationDTO expected = new AccountOperationDTO();
+        BeanUtils.copyProperties(accountOperation, expected);
+        expected.setAmount(120.5);
+        expected.setOperationDate(accountOperation.getDate());
+
+        assertEquals(expected, mapper.fromAccountOperation(accountOperation));
+    }
+
+    @Test
+    void mapsDtosBackLikeBeanUtils() {
+        CurrentBankAccountDTO currentBankAccountDTO = new CurrentBankAccountDTO();
+        currentBankAccountDTO.setId("acc");
+        currentBankAccountDTO.setBalance(10);
+        currentBankAccountDTO.setCreatedAt(new Date());
+        currentBankAccountDTO.setStatus(AccountStatus.ACTIVATED);
+        currentBankAccountDTO.setOverDraft(300);
+        currentBankAccountDTO.setCustomerDTO(new CustomerDTO(7L, "khadija", "khadija@gmail.com"));
+        CurrentAccount expected = new CurrentAccount();
+        BeanUtils.copyProperties(currentBankAccountDTO, expected);
+        expected.setBalance(1000);
+        expected.setCurrency("MAD");
+
+        CurrentAccount currentAccount = mapper.fromCurrentBankAccountDTO(currentBankAccountDTO);
+        assertEquals(expected.getId(), currentAccount.getId());
+        assertEquals(expected.getBalance(), currentAccount.getBalance());
+        assertEquals(expected.getCurrency(), currentAccount.getCurrency());
+        assertEquals(expected.getCreatedAt(), currentAccount.getCreatedAt());
+        assertEquals(expected.getStatus(), currentAccount.getStatus());
+        assertEquals(expected.getOverDraft(), currentAccount.getOverDraft());
+        assertEquals(customer(), currentAccount.getCustomer());
+    }
+
+    private static void assertSameAccount(BankAccountDTO expected, BankAccountDTO actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getBalance(), actual.getBalance());
+        assertEquals(expected.getCurrency(), actual.getCurrency());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getCustomerDTO(), actual.getCustomerDTO());
+        assertEquals(expected.getType(), actual.getType());
+    }
+
+    private static Customer customer() {
+        Customer customer = new Customer();
+        customer.setId(7L);
+        customer.setName("khadija");
+        customer.setEmail("khadija@gmail.com");
+        return customer;
+    }
+
+    private static void fillAccount(BankAccount bankAccount) {
+        bankAccount.setId("acc");
+        bankAccount.setBalance(1500);
+        bankAccount.setCreatedAt(new Date());
+        bankAccount.setCurrency("MAD");
+        bankAccount.setStatus(AccountStatus.CREATED);
+        bankAccount.setCustomer(customer());
+    }
+}
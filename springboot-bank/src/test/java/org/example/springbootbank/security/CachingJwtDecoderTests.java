@@ -0,0 +1,60 @@
+package org.example.springbootbank.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingJwtDecoderTests {
+    private final AtomicInteger decodes = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void verifiesEachLiveTokenOnce() {
+        JwtDecoder decoder = new CachingJwtDecoder(delegate(Instant.now().plusSeconds(600)), 100, meterRegistry);
+
+        Jwt first = decoder.decode("token-a");
+        assertSame(first, decoder.decode("token-a"));
+        decoder.decode("token-b");
+
+        assertEquals(2, decodes.get());
+        assertEquals(1, meterRegistry.get("bank.jwt.decode").tag("result", "hit").timer().count());
+        assertEquals(2, meterRegistry.get("bank.jwt.decode").tag("result", "miss").timer().count());
+    }
+
+    @Test
+    void neverServesExpiredOrRejectedTokens() {
+        JwtDecoder expired = new CachingJwtDecoder(delegate(Instant.now().minusSeconds(1)), 100, meterRegistry);
+        expired.decode("token-a");
+        expired.decode("token-a");
+        assertEquals(2, decodes.get());
+
+        JwtDecoder rejecting = new CachingJwtDecoder(token -> {
+            decodes.incrementAndGet();
+            throw new BadJwtException("bad signature");
+        }, 100, new SimpleMeterRegistry());
+        assertThrows(BadJwtException.class, () -> rejecting.decode("token-a"));
+        assertThrows(BadJwtException.class, () -> rejecting.decode("token-a"));
+        assertEquals(4, decodes.get());
+    }
+
+    private JwtDecoder delegate(Instant expiresAt) {
+        return token -> {
+            decodes.incrementAndGet();
+            return Jwt.withTokenValue(token)
+                    .header("alg", "HS512")
+                    .subject("user1")
+                    .issuedAt(expiresAt.minusSeconds(600))
+                    .expiresAt(expiresAt)
+                    .build();
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.springbootbank.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RefreshTokenStoreTests {
+    private final RefreshTokenStore refreshTokenStore = new RefreshTokenStore(Duration.ofHours(1), 1000);
+
+    @Test
+    void rotationConsumesTheTokenAndReturnsItsSuccessor() {
+        String first = refreshTokenStore.issue("user1");
+
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(first);
+
+        assertEquals("user1", rotation.username());
+        assertNotEquals(first, rotation.refreshToken());
+        assertEquals("user1", refreshTokenStore.rotate(rotation.refreshToken()).username());
+        assertThrows(BadCredentialsException.class, () -> refreshTokenStore.rotate("unknown"));
+    }
+
+    @Test
+    void replayingAConsumedTokenRevokesTheSession() {
+        String first = refreshTokenStore.issue("user1");
+        String second = refreshTokenStore.rotate(first).refreshToken();
+        String otherSession = refreshTokenStore.issue("user1");
+
+        assertThrows(BadCredentialsException.class, () -> refreshTokenStore.rotate(first));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenStore.rotate(second));
+        assertEquals("user1", refreshTokenStore.rotate(otherSession).username());
+    }
+
+    @Test
+    void revokedAndExpiredTokensAreRejected() {
+        String token = refreshTokenStore.issue("user1");
+        refreshTokenStore.revoke(token);
+        assertThrows(BadCredentialsException.class, () -> refreshTokenStore.rotate(token));
+
+        RefreshTokenStore expiring = new RefreshTokenStore(Duration.ZERO, 1000);
+        String expired = expiring.issue("user1");
+        assertThrows(BadCredentialsException.class, () -> expiring.rotate(expired));
+    }
+
+    @Test
+    void revocationsOutnumberingTheMaximumSizeStayInForce() {
+        RefreshTokenStore small = new RefreshTokenStore(Duration.ofHours(1), 10);
+        String revoked = small.issue("user1");
+        String successor = small.rotate(revoked).refreshToken();
+        small.revoke(successor);
+        String live = small.issue("user2");
+
+        // enough logouts to push the first revocation out of its cache
+        for (int i = 0; i < 1000; i++) {
+            small.revoke(small.issue("user" + i));
+        }
+
+        assertThrows(BadCredentialsException.class, () -> small.rotate(successor));
+        assertThrows(BadCredentialsException.class, () -> small.rotate(revoked));
+        // the tokens of revoked sessions are gone, they do not crowd out the live ones
+        assertEquals("user2", small.rotate(live).username());
+    }
+}
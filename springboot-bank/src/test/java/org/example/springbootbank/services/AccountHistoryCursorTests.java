@@ -0,0 +1,82 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.AccountHistoryCursorDTO;
+import org.example.springbootbank.dtos.AccountOperationDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class AccountHistoryCursorTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+
+    @Test
+    void pagesAcrossOperationsWithTheSameDateWithoutSkippingOrRepeatingAny() throws Exception {
+        String accountId = newAccount();
+        BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        // three dates, four operations each: page boundaries fall inside a run of equal dates
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        List<AccountOperation> operations = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            Date date = Date.from(now.minus(day, ChronoUnit.DAYS));
+            for (int i = 0; i < 4; i++) {
+                operations.add(new AccountOperation(null, date, 100, OperationType.CREDIT, bankAccount, "op"));
+            }
+        }
+        accountOperationRepository.saveAll(operations);
+        List<Long> expected = accountOperationRepository.findByBankAccount_Id(accountId).stream()
+                .sorted(Comparator.comparing(AccountOperation::getDate).thenComparing(AccountOperation::getId).reversed())
+                .map(AccountOperation::getId)
+                .toList();
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        AccountHistoryCursorDTO page;
+        do {
+            page = bankAccountService.getAccountHistoryByCursor(accountId, cursor, 5, false);
+            page.getAccountOperationDTOs().stream().map(AccountOperationDTO::getId).forEach(paged::add);
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+
+        assertEquals(12, expected.size());
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void malformedCursorIsABadRequest() throws Exception {
+        String accountId = newAccount();
+
+        ResponseStatusException rejected = assertThrows(ResponseStatusException.class,
+                () -> bankAccountService.getAccountHistoryByCursor(accountId, "not a cursor", 5, false));
+
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+    }
+
+    private String newAccount() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "cursor", "cursor@test"));
+        return bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId();
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.AccountHistoryCursorDTO;
+import org.example.springbootbank.dtos.AccountOperationDTO;
+import org.example.springbootbank.dtos.ArchiveReportDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.DailyBalanceDTO;
+import org.example.springbootbank.dtos.StatementBucket;
+import org.example.springbootbank.dtos.StatementLineDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Everything read from the history, balances, statements and the reconciliation must come out the
+ * same once the old months have moved from the table to the archive.
+ */
+@SpringBootTest(properties = {
+        "bank.archive.directory=target/archive-tests/${random.uuid}",
+        "bank.archive.refresh-interval=PT0.1S",
+        "bank.events.relay-enabled=false"})
+class ArchivalServiceTests {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final YearMonth THIS_MONTH = YearMonth.now();
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private ArchivalService archivalService;
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+
+    @Test
+    void archivedMonthsReadTheSameAsTheTable() throws Exception {
+        // opened with 100, then three months of past operations written around the ledger writer
+        String accountId = newAccount(100);
+        BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        long net = 0;
+        for (int monthsAgo = 4; monthsAgo >= 2; monthsAgo--) {
+            LocalDate first = THIS_MONTH.minusMonths(monthsAgo).atDay(1);
+            net += save(bankAccount, noon(first.plusDays(2)), 4000, OperationType.CREDIT, "salary " + monthsAgo);
+            net += save(bankAccount, noon(first.plusDays(2)), 1500, OperationType.DEBIT, "rent " + monthsAgo);
+            net += save(bankAccount, noon(first.plusDays(9)), 250, OperationType.DEBIT, null);
+        }
+        bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        bankAccount.setBalance(bankAccount.getBalance() + net);
+        bankAccountRepository.save(bankAccount);
+        bankAccountService.credit(accountId, 12.5, "today");
+        balanceSnapshotService.rebuild();
+
+        List<AccountOperationDTO> history = bankAccountService.getAccountHistory(accountId);
+        List<AccountOperationDTO> newestFirst = cursorPages(accountId);
+        List<AccountOperationDTO> pages = pages(accountId);
+        List<DailyBalanceDTO> dailyBalances = bankAccountService.getDailyBalances(accountId, TODAY.minusMonths(6), TODAY);
+        double balanceThreeMonthsAgo = balanceAt(accountId, noon(THIS_MONTH.minusMonths(3).atDay(5)));
+        double balanceBeforeEverything = balanceAt(accountId, noon(THIS_MONTH.minusMonths(5).atDay(1)));
+        List<StatementLineDTO> months = bankAccountService.getStatement(accountId, TODAY.minusMonths(6), TODAY, StatementBucket.MONTH);
+        List<StatementLineDTO> years = bankAccountService.getStatement(accountId, TODAY.minusYears(1), TODAY, StatementBucket.YEAR);
+        assertEquals(10, history.size());
+        assertEquals(reversed(history), newestFirst);
+        assertEquals(newestFirst, pages);
+        assertEquals(0, reconciliationService.reconcile().getMismatches());
+
+        // the two oldest months move, the third stays in the table
+        ArchiveReportDTO report = archivalService.archiveBefore(THIS_MONTH.minusMonths(2));
+
+        assertEquals(List.of(THIS_MONTH.minusMonths(4), THIS_MONTH.minusMonths(3)), report.getMonths());
+        assertEquals(6, report.getOperations());
+        assertEquals(6, report.getDeletedRows());
+        assertEquals(4, accountOperationRepository.findByBankAccount_Id(accountId).size());
+        assertEquals(history, bankAccountService.getAccountHistory(accountId));
+        List<AccountOperationDTO> streamed = new ArrayList<>();
+        bankAccountService.streamAccountHistory(accountId, streamed::add);
+        assertEquals(history, streamed);
+        assertEquals(newestFirst, cursorPages(accountId));
+        assertEquals(pages, pages(accountId));
+        assertEquals(4, bankAccountService.getAccountHistoryByCursor(accountId, null, 3, true).getTotalPages());
+        assertEquals(balanceThreeMonthsAgo, balanceAt(accountId, noon(THIS_MONTH.minusMonths(3).atDay(5))));
+        assertEquals(balanceBeforeEverything, balanceAt(accountId, noon(THIS_MONTH.minusMonths(5).atDay(1))));
+        assertEquals(months, bankAccountService.getStatement(accountId, TODAY.minusMonths(6), TODAY, StatementBucket.MONTH));
+        assertEquals(years, bankAccountService.getStatement(accountId, TODAY.minusYears(1), TODAY, StatementBucket.YEAR));
+        assertEquals(0, reconciliationService.reconcile().getMismatches());
+        balanceSnapshotService.rebuild();
+        assertEquals(dailyBalances, bankAccountService.getDailyBalances(accountId, TODAY.minusMonths(6), TODAY));
+
+        // nothing left to do for the same months
+        ArchiveReportDTO again = archivalService.archiveBefore(THIS_MONTH.minusMonths(2));
+        assertEquals(List.of(), again.getMonths());
+        assertEquals(0, again.getDeletedRows());
+    }
+
+    private long save(BankAccount bankAccount, Date date, long amount, OperationType type, String description) {
+        accountOperationRepository.save(new AccountOperation(null, date, amount, type, bankAccount, description));
+        return type == OperationType.CREDIT ? amount : -amount;
+    }
+
+    private List<AccountOperationDTO> cursorPages(String accountId) throws Exception {
+        List<AccountOperationDTO> operations = new ArrayList<>();
+        String cursor = null;
+        do {
+            AccountHistoryCursorDTO page = bankAccountService.getAccountHistoryByCursor(accountId, cursor, 3, false);
+            operations.addAll(page.getAccountOperationDTOs());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return operations;
+    }
+
+    private List<AccountOperationDTO> pages(String accountId) throws Exception {
+        List<AccountOperationDTO> operations = new ArrayList<>();
+        int totalPages = bankAccountService.getAccountHistory(accountId, 0, 3).getTotalPages();
+        for (int page = 0; page < totalPages; page++) {
+            operations.addAll(bankAccountService.getAccountHistory(accountId, page, 3).getAccountOperationDTOs());
+        }
+        return operations;
+    }
+
+    private static List<AccountOperationDTO> reversed(List<AccountOperationDTO> operations) {
+        List<AccountOperationDTO> reversed = new ArrayList<>(operations);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private String newAccount(double balance) throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "archive", "archive@test"));
+        return bankAccountService.saveCurrentBankAccount(balance, 0, customer.getId()).getId();
+    }
+
+    private double balanceAt(String accountId, Date at) throws Exception {
+        return bankAccountService.getBalanceAt(accountId, at.toInstant()).getBalance();
+    }
+
+    private static Date noon(LocalDate day) {
+        return Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
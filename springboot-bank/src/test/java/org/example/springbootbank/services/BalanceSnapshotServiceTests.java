@@ -0,0 +1,86 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.DailyBalanceDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BalanceSnapshotServiceTests {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+
+    @Test
+    void debitsAndCreditsMaintainTodaysSnapshot() throws Exception {
+        String accountId = newAccount(100);
+        bankAccountService.credit(accountId, 50, "salary");
+        bankAccountService.debit(accountId, 30, "rent");
+
+        List<DailyBalanceDTO> dailyBalances = bankAccountService.getDailyBalances(accountId, TODAY, TODAY);
+
+        assertEquals(1, dailyBalances.size());
+        assertEquals(120, dailyBalances.get(0).getClosingBalance());
+        assertEquals(50, dailyBalances.get(0).getCredits());
+        assertEquals(30, dailyBalances.get(0).getDebits());
+        assertEquals(2, dailyBalances.get(0).getOperationCount());
+    }
+
+    @Test
+    void rebuildDerivesPastDaysAndServesPointInTimeBalances() throws Exception {
+        // opened with 100, then +40 three days ago and -10 yesterday, written around the ledger writer
+        String accountId = newAccount(130);
+        BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        accountOperationRepository.save(new AccountOperation(null, noon(TODAY.minusDays(3)), 4000, OperationType.CREDIT, bankAccount, "old"));
+        accountOperationRepository.save(new AccountOperation(null, noon(TODAY.minusDays(1)), 1000, OperationType.DEBIT, bankAccount, "old"));
+
+        balanceSnapshotService.rebuild();
+
+        List<DailyBalanceDTO> dailyBalances = bankAccountService.getDailyBalances(accountId, TODAY.minusDays(7), TODAY);
+        assertEquals(2, dailyBalances.size());
+        assertEquals(140, dailyBalances.get(0).getClosingBalance());
+        assertEquals(130, dailyBalances.get(1).getClosingBalance());
+
+        assertEquals(100, balanceAt(accountId, noon(TODAY.minusDays(4))));
+        assertEquals(140, balanceAt(accountId, noon(TODAY.minusDays(2))));
+        assertEquals(130, balanceAt(accountId, new Date()));
+
+        bankAccountService.credit(accountId, 5, "today");
+        assertEquals(135, balanceAt(accountId, new Date()));
+        assertEquals(130, balanceAt(accountId, noon(TODAY.minusDays(1))));
+    }
+
+    private String newAccount(double balance) throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "snapshot", "snapshot@test"));
+        return bankAccountService.saveCurrentBankAccount(balance, 0, customer.getId()).getId();
+    }
+
+    private double balanceAt(String accountId, Date at) throws Exception {
+        return bankAccountService.getBalanceAt(accountId, at.toInstant()).getBalance();
+    }
+
+    private static Date noon(LocalDate day) {
+        return Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
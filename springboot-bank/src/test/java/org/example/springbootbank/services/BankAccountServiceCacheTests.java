@@ -0,0 +1,52 @@
+package org.example.springbootbank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BankAccountServiceCacheTests {
+
+    @Autowired
+    private BankAccountService bankAccountService;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    void accountReadsAreCachedAndEvictedByMovements() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "cache", "cache@test"));
+        String accountId = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        Cache<Object, Object> accounts = ((CaffeineCache) cacheManager.getCache("accounts")).getNativeCache();
+        long hits = accounts.stats().hitCount();
+
+        bankAccountService.getBankAccount(accountId);
+        bankAccountService.getBankAccount(accountId);
+        assertEquals(hits + 1, accounts.stats().hitCount());
+
+        bankAccountService.credit(accountId, 50, "cache");
+        assertEquals(150, bankAccountService.getBankAccount(accountId).getBalance());
+        bankAccountService.debit(accountId, 20, "cache");
+        assertEquals(130, bankAccountService.getBankAccount(accountId).getBalance());
+    }
+
+    @Test
+    void customerUpdateEvictsCustomerAndAccounts() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "before", "cache@test"));
+        String accountId = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        bankAccountService.getCustomer(customer.getId());
+        bankAccountService.getBankAccount(accountId);
+
+        bankAccountService.updateCustomer(new CustomerDTO(customer.getId(), "after", "cache@test"));
+
+        assertEquals("after", bankAccountService.getCustomer(customer.getId()).getName());
+        assertEquals("after", bankAccountService.getBankAccount(accountId).getCustomerDTO().getName());
+        assertTrue(cacheManager.getCache("customers").get(customer.getId()) != null);
+    }
+}
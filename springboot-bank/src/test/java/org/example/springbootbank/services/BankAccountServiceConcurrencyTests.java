@@ -0,0 +1,184 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.Money;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class BankAccountServiceConcurrencyTests {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private BalanceMutationEngine balanceMutationEngine;
+    @Autowired
+    private LedgerWriter ledgerWriter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentTransfersConserveTotalBalance() throws Exception {
+        List<String> accounts = newAccounts(4, 10_000);
+        runConcurrently(200, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String source = accounts.get(random.nextInt(accounts.size()));
+            String destination = accounts.get(random.nextInt(accounts.size()));
+            if (source.equals(destination)) {
+                return;
+            }
+            try {
+                bankAccountService.transfer(source, destination, 1 + random.nextInt(50));
+            } catch (BalanceNotSufficientException ignored) {
+                // a rejected transfer must leave both balances untouched
+            }
+        });
+
+        double total = 0;
+        for (String accountId : accounts) {
+            double balance = bankAccountService.getBankAccount(accountId).getBalance();
+            assertTrue(balance >= 0, "balance went negative on " + accountId);
+            assertEquals(10_000 + ledgerSum(accountId), balance, "balance drifted from its ledger on " + accountId);
+            total += balance;
+        }
+        assertEquals(40_000, total);
+    }
+
+    @Test
+    void concurrentCreditsOnHotAccountAreNotLost() throws Exception {
+        String hotAccount = newAccounts(1, 0).get(0);
+        runConcurrently(250, () -> bankAccountService.credit(hotAccount, 1, "hot"));
+
+        assertEquals(THREADS * 250, bankAccountService.getBankAccount(hotAccount).getBalance());
+        assertEquals(THREADS * 250, accountOperationRepository.findByBankAccount_Id(hotAccount).size());
+    }
+
+    @Test
+    void mutationIsRetriedWhenAnotherNodeUpdatesTheAccount() throws Exception {
+        String accountId = newAccounts(1, 100).get(0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // another node credits 50 while the first attempt holds this JVM's lock
+        balanceMutationEngine.execute(() -> {
+            BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+            long amount = Money.toMinor(30, bankAccount.getCurrency());
+            if (attempts.incrementAndGet() == 1) {
+                updateOutsideTheEngine(accountId, Money.toMinor(50, bankAccount.getCurrency()));
+            }
+            ledgerWriter.append(List.of(LedgerWriter.Posting.debit(accountId, amount, "retried", bankAccount.getVersion())));
+            return null;
+        }, accountId);
+
+        assertEquals(2, attempts.get());
+        assertEquals(Money.toMinor(120, Money.DEFAULT_CURRENCY), bankAccountRepository.findById(accountId).orElseThrow().getBalance());
+        assertEquals(1, accountOperationRepository.findByBankAccount_Id(accountId).size());
+    }
+
+    @Test
+    void debitIsCheckedAgainWhenAnotherNodeMovedTheBalanceBeforeTheLedgerCommit() throws Exception {
+        String accountId = newAccounts(1, 100).get(0);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // checks 80 against 100, then another node takes 50 before the posting is written
+        assertThrows(BalanceNotSufficientException.class, () -> balanceMutationEngine.execute(() -> {
+            int attempt = attempts.incrementAndGet();
+            BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+            long amount = Money.toMinor(80, bankAccount.getCurrency());
+            if (bankAccount.getBalance() < amount) {
+                throw new BalanceNotSufficientException("Insufficient balance");
+            }
+            if (attempt == 1) {
+                updateOutsideTheEngine(accountId, -Money.toMinor(50, bankAccount.getCurrency()));
+            }
+            ledgerWriter.append(List.of(LedgerWriter.Posting.debit(accountId, amount, "checked", bankAccount.getVersion())));
+            return null;
+        }, accountId));
+
+        assertEquals(2, attempts.get());
+        assertEquals(Money.toMinor(50, Money.DEFAULT_CURRENCY), bankAccountRepository.findById(accountId).orElseThrow().getBalance());
+        assertEquals(0, accountOperationRepository.findByBankAccount_Id(accountId).size());
+    }
+
+    /**
+     * A commit on another node: the row moves, and its version with it, without this JVM's locks.
+     * Run from another thread, so it does not join the mutation's transaction.
+     */
+    private void updateOutsideTheEngine(String accountId, long delta) {
+        CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                "update bank_account set balance = balance + ?, version = version + 1 where id = ?", delta, accountId)).join();
+    }
+
+    private List<String> newAccounts(int count, double initialBalance) throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "concurrency", "concurrency@test"));
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add(bankAccountService.saveCurrentBankAccount(initialBalance, 0, customer.getId()).getId());
+        }
+        return accounts;
+    }
+
+    private double ledgerSum(String accountId) {
+        long sum = 0;
+        for (AccountOperation operation : accountOperationRepository.findByBankAccount_Id(accountId)) {
+            sum += operation.getType() == OperationType.CREDIT ? operation.getAmount() : -operation.getAmount();
+        }
+        return Money.toMajor(sum, Money.DEFAULT_CURRENCY);
+    }
+
+    private void runConcurrently(int iterations, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Exception> failures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        task.run();
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "workers did not finish, possible deadlock");
+        assertTrue(failures.isEmpty(), () -> "worker failed: " + failures);
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.springbootbank.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * The same mutations with the ledger written inline: a change made by another node is only
+ * found by the {@code @Version} check of the account update itself.
+ */
+@TestPropertySource(properties = "bank.ledger.group-commit=false")
+class BankAccountServiceInlineLedgerConcurrencyTests extends BankAccountServiceConcurrencyTests {
+    @Autowired
+    private LedgerWriter ledgerWriter;
+
+    @Test
+    void ledgerIsWrittenInline() {
+        assertFalse(ledgerWriter.isGroupCommit());
+    }
+}
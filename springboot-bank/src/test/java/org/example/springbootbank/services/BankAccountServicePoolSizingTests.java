@@ -0,0 +1,57 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** More concurrent callers than pooled connections, the way virtual threads drive the service. */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class BankAccountServicePoolSizingTests {
+    private static final int CALLERS = 32;
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+
+    @Test
+    void groupCommitDoesNotStarveTheLedgerWriterOfConnections() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "pool", "pool@test"));
+        List<String> sources = new ArrayList<>();
+        List<String> destinations = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            sources.add(bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId());
+            destinations.add(bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId());
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                String source = sources.get(i);
+                String destination = destinations.get(i);
+                futures.add(executor.submit(() -> {
+                    bankAccountService.transfer(source, destination, 10);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        for (int i = 0; i < CALLERS; i++) {
+            assertEquals(90, bankAccountService.getBankAccount(sources.get(i)).getBalance());
+            assertEquals(10, bankAccountService.getBankAccount(destinations.get(i)).getBalance());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.springbootbank.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.springbootbank.dtos.BankAccountDTO;
+import org.example.springbootbank.dtos.CurrentBankAccountDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.SavingBankAccountDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// statistics are per session factory: the outbox relay polling in the background would be counted too
+@SpringBootTest(properties = "bank.events.relay-enabled=false")
+class BankAccountServiceQueryCountTests {
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "projection", "projection@test"));
+        for (int i = 0; i < 20; i++) {
+            bankAccountService.saveCurrentBankAccount(100, 50, customer.getId());
+            bankAccountService.saveSavingBankAccount(100, 2.5, customer.getId());
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void bankAccountListRunsASingleStatement() {
+        List<BankAccountDTO> accounts = bankAccountService.bankAccountList(0, 1000);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(accounts.size() >= 40);
+        for (BankAccountDTO account : accounts) {
+            assertNotNull(account.getCustomerDTO());
+            boolean ours = "projection".equals(account.getCustomerDTO().getName());
+            if (account instanceof SavingBankAccountDTO saving) {
+                assertEquals("SavingAccount", saving.getType());
+                assertTrue(!ours || saving.getInterestRate() == 2.5);
+            } else {
+                CurrentBankAccountDTO current = (CurrentBankAccountDTO) account;
+                assertEquals("CurrentAccount", current.getType());
+                assertTrue(!ours || current.getOverDraft() == 50);
+            }
+        }
+    }
+
+    @Test
+    void listCustomersRunsASingleStatement() {
+        List<CustomerDTO> customers = bankAccountService.listCustomers(0, 1000);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(customers.size() >= 1);
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.springbootbank.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springbootbank.dtos.BulkTransferMode;
+import org.example.springbootbank.dtos.BulkTransferResultDTO;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.TransferDTO;
+import org.example.springbootbank.dtos.TransferResultDTO;
+import org.example.springbootbank.dtos.TransferStatus;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.example.springbootbank.repository.IdempotencyRecordRepository;
+import org.example.springbootbank.web.BankAccountRestController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class BulkTransferProcessorTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private BalanceMutationEngine balanceMutationEngine;
+    @Autowired
+    private LedgerWriter ledgerWriter;
+    @Autowired
+    private PartitionedBalanceEngine partitionedBalanceEngine;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BankAccountRestController bankAccountRestController;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OperationEventBus operationEventBus;
+
+    @Test
+    void bestEffortAppliesValidTransfersAndReportsTheOthers() throws Exception {
+        Long customerId = bankAccountService.saveCustomer(new CustomerDTO(null, "bulk", "bulk@test")).getId();
+        String a = bankAccountService.saveCurrentBankAccount(100, 0, customerId).getId();
+        String b = bankAccountService.saveCurrentBankAccount(20, 0, customerId).getId();
+        String c = bankAccountService.saveCurrentBankAccount(0, 0, customerId).getId();
+
+        // transfers are grouped by source account, so none of these depends on another source going first
+        BulkTransferResultDTO result = bankAccountService.bulkTransfer(List.of(
+                transfer(a, b, 60),
+                transfer(a, c, 60),
+                transfer(b, c, 10),
+                transfer(a, a, 1),
+                transfer(a, "missing", 1)), BulkTransferMode.BEST_EFFORT);
+
+        assertEquals(List.of(TransferStatus.APPLIED, TransferStatus.REJECTED, TransferStatus.APPLIED,
+                TransferStatus.REJECTED, TransferStatus.REJECTED), statuses(result));
+        assertEquals(2, result.getApplied());
+        assertEquals(3, result.getRejected());
+        assertEquals(40, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(70, bankAccountService.getBankAccount(b).getBalance());
+        assertEquals(10, bankAccountService.getBankAccount(c).getBalance());
+        assertEquals(1, accountOperationRepository.findByBankAccount_Id(a).size());
+        assertEquals(2, accountOperationRepository.findByBankAccount_Id(b).size());
+    }
+
+    @Test
+    void allOrNothingLeavesBalancesUntouchedWhenOneTransferFails() throws Exception {
+        Long customerId = bankAccountService.saveCustomer(new CustomerDTO(null, "bulk", "bulk@test")).getId();
+        String a = bankAccountService.saveCurrentBankAccount(100, 0, customerId).getId();
+        String b = bankAccountService.saveCurrentBankAccount(0, 0, customerId).getId();
+
+        BulkTransferResultDTO result = bankAccountService.bulkTransfer(List.of(
+                transfer(a, b, 60),
+                transfer(a, b, 60)), BulkTransferMode.ALL_OR_NOTHING);
+
+        assertEquals(List.of(TransferStatus.NOT_APPLIED, TransferStatus.REJECTED), statuses(result));
+        assertEquals(0, result.getApplied());
+        assertEquals(100, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(0, accountOperationRepository.findByBankAccount_Id(b).size());
+
+        result = bankAccountService.bulkTransfer(List.of(
+                transfer(a, b, 60),
+                transfer(b, a, 20)), BulkTransferMode.ALL_OR_NOTHING);
+
+        assertEquals(2, result.getApplied());
+        assertEquals(60, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(40, bankAccountService.getBankAccount(b).getBalance());
+    }
+
+    @Test
+    void bestEffortReportsAChunkThatFailsToCommitAndKeepsTheOthers() throws Exception {
+        Long customerId = bankAccountService.saveCustomer(new CustomerDTO(null, "bulk", "bulk@test")).getId();
+        String a = bankAccountService.saveCurrentBankAccount(100, 0, customerId).getId();
+        String b = bankAccountService.saveCurrentBankAccount(100, 0, customerId).getId();
+        String full = bankAccountService.saveCurrentBankAccount(0, 0, customerId).getId();
+        // crediting this one overflows: stands in for a chunk whose commit fails
+        BankAccount bankAccount = bankAccountRepository.findById(full).orElseThrow();
+        bankAccount.setBalance(Long.MAX_VALUE);
+        bankAccountRepository.save(bankAccount);
+        BulkTransferProcessor oneTransferPerChunk = new BulkTransferProcessor(balanceMutationEngine, ledgerWriter,
+                partitionedBalanceEngine, bankAccountRepository, cacheManager, 1);
+
+        BulkTransferResultDTO result = oneTransferPerChunk.process(List.of(
+                transfer(a, b, 10),
+                transfer(b, full, 10),
+                transfer(a, b, 5)), BulkTransferMode.BEST_EFFORT);
+
+        assertEquals(List.of(TransferStatus.APPLIED, TransferStatus.NOT_APPLIED, TransferStatus.APPLIED), statuses(result));
+        assertEquals(2, result.getApplied());
+        assertEquals(85, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(115, bankAccountService.getBankAccount(b).getBalance());
+        assertEquals(0, accountOperationRepository.findByBankAccount_Id(full).size());
+    }
+
+    @Test
+    void retriedBulkTransferWithTheSameKeyIsAppliedOnce() throws Exception {
+        Long customerId = bankAccountService.saveCustomer(new CustomerDTO(null, "bulk", "bulk@test")).getId();
+        String a = bankAccountService.saveCurrentBankAccount(100, 0, customerId).getId();
+        String b = bankAccountService.saveCurrentBankAccount(0, 0, customerId).getId();
+        List<TransferDTO> transfers = List.of(transfer(a, b, 30), transfer(a, b, 20));
+        String key = UUID.randomUUID().toString();
+
+        BulkTransferResultDTO first = bankAccountRestController.bulkTransfer(transfers, BulkTransferMode.BEST_EFFORT, key);
+        BulkTransferResultDTO retried = bankAccountRestController.bulkTransfer(transfers, BulkTransferMode.BEST_EFFORT, key);
+
+        assertEquals(first, retried);
+        assertEquals(2, retried.getApplied());
+        assertEquals(50, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(2, accountOperationRepository.findByBankAccount_Id(b).size());
+    }
+
+    @Test
+    void largeBulkTransferIsReplayedFromTheTable() throws Exception {
+        Long customerId = bankAccountService.saveCustomer(new CustomerDTO(null, "bulk", "bulk@test")).getId();
+        String a = bankAccountService.saveCurrentBankAccount(2000, 0, customerId).getId();
+        String b = bankAccountService.saveCurrentBankAccount(0, 0, customerId).getId();
+        List<TransferDTO> transfers = IntStream.range(0, 1200).mapToObj(i -> transfer(a, b, 1)).toList();
+        String key = UUID.randomUUID().toString();
+
+        BulkTransferResultDTO first = bankAccountRestController.bulkTransfer(transfers, BulkTransferMode.BEST_EFFORT, key);
+        // another node, or this one after a restart, only has the table
+        IdempotencyStore otherNodeStore = new IdempotencyStore(idempotencyRecordRepository, objectMapper,
+                new SimpleMeterRegistry(), Duration.ofHours(1), 100, true);
+        BankAccountRestController otherNode = new BankAccountRestController(bankAccountService, objectMapper,
+                otherNodeStore, operationEventBus);
+        BulkTransferResultDTO replayed = otherNode.bulkTransfer(transfers, BulkTransferMode.BEST_EFFORT, key);
+
+        assertEquals(1200, first.getApplied());
+        assertEquals(first, replayed);
+        assertEquals(800, bankAccountService.getBankAccount(a).getBalance());
+        assertEquals(1200, accountOperationRepository.findByBankAccount_Id(b).size());
+    }
+
+    private static TransferDTO transfer(String source, String destination, double amount) {
+        TransferDTO transferDTO = new TransferDTO();
+        transferDTO.setAccountSource(source);
+        transferDTO.setAccountDestination(destination);
+        transferDTO.setAmount(amount);
+        return transferDTO;
+    }
+
+    private static List<TransferStatus> statuses(BulkTransferResultDTO result) {
+        return result.getResults().stream().map(TransferResultDTO::getStatus).toList();
+    }
+}
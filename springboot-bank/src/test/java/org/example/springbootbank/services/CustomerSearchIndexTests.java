@@ -0,0 +1,88 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerSearchIndexTests {
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CustomerSearchIndex(null);
+        index.put(new CustomerDTO(1L, "Khadija", "khadija@gmail.com"));
+        index.put(new CustomerDTO(2L, "Yassir", "yassir@gmail.com"));
+        index.put(new CustomerDTO(3L, "Oma", "oma@gmail.com"));
+        index.put(new CustomerDTO(4L, "Abdel Khadim", "abdel@yahoo.fr"));
+        index.put(new CustomerDTO(5L, "Salma", "contact@khadi.ma"));
+    }
+
+    @Test
+    void ranksNamePrefixThenNameThenEmail() {
+        assertEquals(List.of(1L, 4L, 5L), ids(index.search("KHAD", 0, 10)));
+    }
+
+    @Test
+    void matchesEmailsAndPages() {
+        assertEquals(List.of(3L, 2L, 1L), ids(index.search("gmail", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("gmail", 1, 1)));
+        assertTrue(index.search("nobody", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shortKeywordsScanAndEmptyKeywordReturnsEveryone() {
+        assertEquals(List.of(2L, 4L), ids(index.search("ya", 0, 10)));
+        assertEquals(5, index.search("", 0, 10).size());
+    }
+
+    @Test
+    void shortKeywordsPageInIdOrder() {
+        assertEquals(List.of(1L, 2L), ids(index.search("", 0, 2)));
+        assertEquals(List.of(3L, 4L), ids(index.search("", 1, 2)));
+        assertEquals(List.of(5L), ids(index.search("", 2, 2)));
+        assertTrue(index.search("", 3, 2).isEmpty());
+        assertEquals(List.of(2L, 4L), ids(index.search("ya", 0, 3)));
+        assertEquals(List.of(4L), ids(index.search("ya", 1, 1)));
+    }
+
+    @Test
+    void pagesOfRankedMatchesAreTheSlicesOfTheFullRanking() {
+        List<Long> all = ids(index.search("khad", 0, 10));
+
+        assertEquals(all.subList(0, 2), ids(index.search("khad", 0, 2)));
+        assertEquals(all.subList(2, 3), ids(index.search("khad", 1, 2)));
+        assertTrue(index.search("khad", 2, 2).isEmpty());
+        assertEquals(all, ids(index.search("khad", 0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void rejectsNegativePagesAndEmptySizes() {
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> index.search("khad", -1, 10)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> index.search("", 0, 0)).getStatusCode());
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        index.put(new CustomerDTO(2L, "Yasmine", "yasmine@outlook.com"));
+        index.remove(3L);
+
+        assertTrue(index.search("yassir", 0, 10).isEmpty());
+        assertEquals(List.of(2L), ids(index.search("yasm", 0, 10)));
+        assertEquals(List.of(1L), ids(index.search("gmail", 0, 10)));
+        assertEquals(4, index.size());
+    }
+
+    private static List<Long> ids(List<CustomerDTO> customers) {
+        return customers.stream().map(CustomerDTO::getId).toList();
+    }
+}
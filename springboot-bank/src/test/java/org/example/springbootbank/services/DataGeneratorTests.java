@@ -0,0 +1,63 @@
+package org.example.springbootbank.services;
+
+import jakarta.persistence.EntityManager;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class DataGeneratorTests {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+
+    @Test
+    void generatesSkewedConsistentLedgers() throws Exception {
+        Set<String> existing = bankAccountRepository.findAll().stream().map(BankAccount::getId).collect(Collectors.toSet());
+        long operationsBefore = accountOperationRepository.count();
+        DataGenerator dataGenerator = new DataGenerator(jdbcTemplate, entityManager, transactionManager,
+                50, 2, 20, 1.1, 90, 4, 7, 7);
+
+        DataGenerator.Report report = dataGenerator.generate();
+
+        assertEquals(50, report.customers());
+        assertEquals(100, report.accounts());
+        assertEquals(existing.size() + 100, bankAccountRepository.count());
+        assertEquals(operationsBefore + report.operations(), accountOperationRepository.count());
+        assertTrue(report.rowsPerSecond() > 0);
+
+        List<BankAccount> generated = bankAccountRepository.findAll().stream()
+                .filter(account -> !existing.contains(account.getId()))
+                .toList();
+        assertEquals(100, generated.size());
+        for (BankAccount account : generated) {
+            assertTrue(account.getBalance() >= 0);
+            assertEquals(account.getOpeningBalance() + accountOperationRepository.net(account.getId()), account.getBalance());
+        }
+        // the hottest account takes a large share of the operations, the coldest close to none
+        List<Long> counts = generated.stream().map(account -> accountOperationRepository.countByBankAccount_Id(account.getId()))
+                .sorted(Comparator.reverseOrder()).toList();
+        assertTrue(counts.get(0) > 5 * 20, "hottest account has " + counts.get(0));
+        assertTrue(counts.get(counts.size() - 1) < 20);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.springbootbank.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.DebitDTO;
+import org.example.springbootbank.dtos.TransferDTO;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.exceptions.IdempotencyKeyConflictException;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class IdempotencyStoreTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void retriedDebitIsAppliedOnceAndReplayedFromMemoryAndDatabase() throws Exception {
+        String accountId = newAccount(100);
+        DebitDTO debitDTO = debit(accountId, 30);
+        String key = UUID.randomUUID().toString();
+
+        DebitDTO first = debit(idempotencyStore, key, debitDTO);
+        DebitDTO retried = debit(idempotencyStore, key, debitDTO);
+        DebitDTO replayed = debit(otherNode(), key, debitDTO);
+
+        assertEquals(debitDTO, first);
+        assertEquals(debitDTO, retried);
+        assertEquals(debitDTO, replayed);
+        assertEquals(70, bankAccountService.getBankAccount(accountId).getBalance());
+        assertEquals(1, accountOperationRepository.findByBankAccount_Id(accountId).size());
+    }
+
+    @Test
+    void keyReusedWithAnotherRequestIsRejected() throws Exception {
+        String accountId = newAccount(100);
+        String key = UUID.randomUUID().toString();
+        debit(idempotencyStore, key, debit(accountId, 30));
+
+        IdempotencyKeyConflictException conflict = assertThrows(IdempotencyKeyConflictException.class,
+                () -> debit(idempotencyStore, key, debit(accountId, 40)));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, conflict.getStatusCode());
+        assertEquals(70, bankAccountService.getBankAccount(accountId).getBalance());
+    }
+
+    @Test
+    void failedMovementReleasesItsKey() throws Exception {
+        String accountId = newAccount(10);
+        String key = UUID.randomUUID().toString();
+        DebitDTO debitDTO = debit(accountId, 30);
+
+        assertThrows(BalanceNotSufficientException.class, () -> debit(idempotencyStore, key, debitDTO));
+        bankAccountService.credit(accountId, 50, "top up");
+        debit(idempotencyStore, key, debitDTO);
+
+        assertEquals(30, bankAccountService.getBankAccount(accountId).getBalance());
+    }
+
+    @Test
+    void completedKeyWithoutResponseBodyIsReplayedFromTheTable() throws Exception {
+        String source = newAccount(100);
+        String destination = newAccount(0);
+        String key = UUID.randomUUID().toString();
+        TransferDTO transfer = new TransferDTO();
+        transfer.setAccountSource(source);
+        transfer.setAccountDestination(destination);
+        transfer.setAmount(30);
+
+        transfer(idempotencyStore, key, transfer);
+        transfer(otherNode(), key, transfer);
+
+        assertEquals(70, bankAccountService.getBankAccount(source).getBalance());
+        assertEquals(30, bankAccountService.getBankAccount(destination).getBalance());
+    }
+
+    @Test
+    void appliedMovementWhoseResponseCannotBeStoredIsNotAppliedAgain() throws Exception {
+        String accountId = newAccount(100);
+        String key = UUID.randomUUID().toString();
+        DebitDTO debitDTO = debit(accountId, 30);
+        Object unserializable = new Object();
+
+        Object first = idempotencyStore.execute(key, "debit", debitDTO, Object.class, () -> {
+            bankAccountService.debit(accountId, debitDTO.getAmount(), debitDTO.getDescription());
+            return unserializable;
+        });
+        Object retried = idempotencyStore.execute(key, "debit", debitDTO, Object.class, () -> {
+            throw new AssertionError("applied twice");
+        });
+        IdempotencyKeyConflictException gone = assertThrows(IdempotencyKeyConflictException.class,
+                () -> otherNode().execute(key, "debit", debitDTO, Object.class, () -> {
+                    throw new AssertionError("applied twice");
+                }));
+
+        assertSame(unserializable, first);
+        assertSame(unserializable, retried);
+        assertEquals(HttpStatus.GONE, gone.getStatusCode());
+        assertTrue(idempotencyRecordRepository.findAll().stream()
+                .anyMatch(record -> record.getId().endsWith(key) && record.isCompleted() && record.getResponse() == null));
+        assertEquals(70, bankAccountService.getBankAccount(accountId).getBalance());
+    }
+
+    /** Another node, or this one after a restart, only has the table. */
+    private IdempotencyStore otherNode() {
+        return new IdempotencyStore(idempotencyRecordRepository, objectMapper,
+                new SimpleMeterRegistry(), Duration.ofHours(1), 100, true);
+    }
+
+    private void transfer(IdempotencyStore store, String key, TransferDTO transfer) throws Exception {
+        store.execute(key, "transfer", transfer, Void.class, () -> {
+            bankAccountService.transfer(transfer.getAccountSource(), transfer.getAccountDestination(), transfer.getAmount());
+            return null;
+        });
+    }
+
+    private DebitDTO debit(IdempotencyStore store, String key, DebitDTO debitDTO) throws Exception {
+        return store.execute(key, "debit", debitDTO, DebitDTO.class, () -> {
+            bankAccountService.debit(debitDTO.getAccountId(), debitDTO.getAmount(), debitDTO.getDescription());
+            return debitDTO;
+        });
+    }
+
+    private static DebitDTO debit(String accountId, double amount) {
+        DebitDTO debitDTO = new DebitDTO();
+        debitDTO.setAccountId(accountId);
+        debitDTO.setAmount(amount);
+        debitDTO.setDescription("rent");
+        return debitDTO;
+    }
+
+    private String newAccount(double initialBalance) throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "idempotency", "idempotency@test"));
+        return bankAccountService.saveCurrentBankAccount(initialBalance, 0, customer.getId()).getId();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.InterestAccrualReportDTO;
+import org.example.springbootbank.entities.InterestAccrualRun;
+import org.example.springbootbank.entities.SavingAccount;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.example.springbootbank.repository.InterestAccrualRunRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// small chunks on two threads so a run spans several chunks finishing out of order
+@SpringBootTest(properties = {"bank.interest.chunk-size=2", "bank.interest.threads=2"})
+class InterestAccrualServiceTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private InterestAccrualService interestAccrualService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private InterestAccrualRunRepository interestAccrualRunRepository;
+
+    @Test
+    void creditsTheInterestOfAPeriodOnce() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "interest", "interest@test"));
+        String saving = bankAccountService.saveSavingBankAccount(1200, 6, customer.getId()).getId();
+        String empty = bankAccountService.saveSavingBankAccount(0, 6, customer.getId()).getId();
+        String current = bankAccountService.saveCurrentBankAccount(1200, 0, customer.getId()).getId();
+        LocalDate period = LocalDate.of(2025, 1, 31);
+
+        InterestAccrualReportDTO report = interestAccrualService.accrue(period);
+        InterestAccrualReportDTO again = interestAccrualService.accrue(period);
+
+        // 1200 at 6% a year is 6 a month
+        assertEquals(1206, bankAccountService.getBankAccount(saving).getBalance());
+        assertEquals(0, bankAccountService.getBankAccount(empty).getBalance());
+        assertEquals(1200, bankAccountService.getBankAccount(current).getBalance());
+        assertEquals("Interest until 2025-01-31", bankAccountService.getAccountHistory(saving).get(0).getDescription());
+        assertEquals(1, bankAccountService.getAccountHistory(saving).size());
+        assertTrue(report.getAccounts() >= 2);
+        assertEquals(report.getOperations(), again.getOperations());
+        assertFalse(interestAccrualRunRepository.findById(period).orElseThrow().getCheckpoint().isEmpty());
+    }
+
+    @Test
+    void resumesAnInterruptedRunWithoutCreditingTwice() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "resume", "resume@test"));
+        List<String> accounts = Stream.of(
+                        bankAccountService.saveSavingBankAccount(1200, 6, customer.getId()).getId(),
+                        bankAccountService.saveSavingBankAccount(1200, 6, customer.getId()).getId(),
+                        bankAccountService.saveSavingBankAccount(1200, 6, customer.getId()).getId())
+                .sorted()
+                .toList();
+        LocalDate period = LocalDate.of(2025, 2, 28);
+        // the run stopped after the first account, and the chunk of the second committed without moving the checkpoint
+        interestAccrualRunRepository.save(new InterestAccrualRun(period, accounts.get(0), 1, 0, new Date(), null));
+        SavingAccount accrued = (SavingAccount) bankAccountRepository.findById(accounts.get(1)).orElseThrow();
+        accrued.setInterestAccruedUntil(period);
+        bankAccountRepository.save(accrued);
+
+        InterestAccrualReportDTO report = interestAccrualService.accrue(period);
+
+        assertEquals(accounts.get(0), report.getResumedFrom());
+        assertEquals(1200, bankAccountService.getBankAccount(accounts.get(0)).getBalance());
+        assertEquals(1200, bankAccountService.getBankAccount(accounts.get(1)).getBalance());
+        assertEquals(1206, bankAccountService.getBankAccount(accounts.get(2)).getBalance());
+        assertTrue(interestAccrualRunRepository.findById(period).orElseThrow().getCompletedAt() != null);
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.springbootbank.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class OperationMetricsTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void operationsAreTimedByOutcomeAndException() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "metrics", "metrics@test"));
+        String accountId = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        long debits = count("debit", "success", "none");
+        long rejections = count("debit", "rejected", "BalanceNotSufficientException");
+
+        bankAccountService.debit(accountId, 30, "rent");
+        assertThrows(BalanceNotSufficientException.class, () -> bankAccountService.debit(accountId, 1_000, "car"));
+        bankAccountService.getAccountHistory(accountId);
+
+        assertEquals(debits + 1, count("debit", "success", "none"));
+        assertEquals(rejections + 1, count("debit", "rejected", "BalanceNotSufficientException"));
+        assertNotNull(meterRegistry.find(OperationMetrics.TIMER).tag("operation", "getAccountHistory").timer());
+        assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("repository", "AccountOperationRepository").timer());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").gauge());
+    }
+
+    private long count(String operation, String outcome, String exception) {
+        Timer timer = meterRegistry.find(OperationMetrics.TIMER)
+                .tags("operation", operation, "outcome", outcome, "exception", exception)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
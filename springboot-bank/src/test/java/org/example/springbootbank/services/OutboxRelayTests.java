@@ -0,0 +1,98 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.OperationEventDTO;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "bank.events.file-log.path=target/outbox-relay-tests.ndjson")
+class OutboxRelayTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private OperationEventBus operationEventBus;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Test
+    void operationsArePushedToSubscribersAndTheFileLog() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "outbox", "outbox@test"));
+        String source = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        String destination = bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId();
+        BlockingQueue<OperationEventDTO> received = new LinkedBlockingQueue<>();
+        try (OperationEventBus.Subscription ignored = operationEventBus.subscribe(
+                event -> event.getAccountId().equals(source), received::add, () -> { })) {
+            bankAccountService.credit(source, 10.5, "salary");
+            bankAccountService.transfer(source, destination, 20);
+            outboxRelay.relay();
+
+            List<OperationEventDTO> events = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                OperationEventDTO event = received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "event not delivered");
+                events.add(event);
+            }
+            assertEquals(OperationType.CREDIT, events.get(0).getType());
+            assertEquals(10.5, events.get(0).getAmount());
+            assertEquals("MAD", events.get(0).getCurrency());
+            assertEquals(OperationType.DEBIT, events.get(1).getType());
+            assertEquals(20, events.get(1).getAmount());
+        }
+
+        outboxRelay.relay();
+        assertEquals(0, outboxEventRepository.count());
+        long logged = Files.readAllLines(Path.of("target/outbox-relay-tests.ndjson")).stream()
+                .filter(line -> line.contains(source) || line.contains(destination))
+                .count();
+        assertEquals(3, logged);
+    }
+
+    @Test
+    void eventsAreDeliveredWhileALongScheduledJobRuns() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "outbox", "outbox@test"));
+        String accountId = bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId();
+        BlockingQueue<OperationEventDTO> received = new LinkedBlockingQueue<>();
+        CountDownLatch jobRunning = new CountDownLatch(1);
+        CountDownLatch jobDone = new CountDownLatch(1);
+        // holds the scheduler's threads the way a nightly job would
+        taskScheduler.schedule(() -> {
+            jobRunning.countDown();
+            try {
+                jobDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Instant.now());
+        try (OperationEventBus.Subscription ignored = operationEventBus.subscribe(
+                event -> event.getAccountId().equals(accountId), received::add, () -> { })) {
+            assertTrue(jobRunning.await(5, TimeUnit.SECONDS));
+            bankAccountService.credit(accountId, 1, "while the job runs");
+
+            assertNotNull(received.poll(5, TimeUnit.SECONDS), "event not relayed");
+        } finally {
+            jobDone.countDown();
+        }
+    }
+}
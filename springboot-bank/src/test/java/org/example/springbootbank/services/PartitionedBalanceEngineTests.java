@@ -0,0 +1,117 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.exceptions.BalanceNotSufficientException;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"bank.engine.partitions=4", "bank.engine.batch-size=50"})
+class PartitionedBalanceEngineTests {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private PartitionedBalanceEngine partitionedBalanceEngine;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+    @Autowired
+    private LedgerWriter ledgerWriter;
+    @Autowired
+    private BalanceMutationEngine balanceMutationEngine;
+
+    @Test
+    void concurrentCreditsAndTransfersAreJournaledExactly() throws Exception {
+        List<String> accounts = newAccounts(8, 100);
+        String hotAccount = accounts.get(0);
+        runConcurrently(200, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            bankAccountService.credit(hotAccount, 1, "hot");
+            String source = accounts.get(random.nextInt(accounts.size()));
+            String destination = accounts.get(random.nextInt(accounts.size()));
+            if (!source.equals(destination)) {
+                try {
+                    bankAccountService.transfer(source, destination, 1 + random.nextInt(30));
+                } catch (BalanceNotSufficientException ignored) {
+                    // checked against the partition's balance, nothing journaled
+                }
+            }
+        });
+
+        long total = 0;
+        for (String accountId : accounts) {
+            long balance = bankAccountRepository.findById(accountId).orElseThrow().getBalance();
+            assertTrue(balance >= 0, "balance went negative on " + accountId);
+            assertEquals(10_000 + accountOperationRepository.net(accountId), balance, "balance drifted from its ledger on " + accountId);
+            total += balance;
+            // the partitions hold the committed balances: exactly all of it can be withdrawn
+            assertThrows(BalanceNotSufficientException.class, () -> bankAccountService.debit(accountId, balance / 100.0 + 0.01, "too much"));
+            bankAccountService.debit(accountId, balance / 100.0, "all");
+        }
+        assertEquals((8 * 100 + THREADS * 200) * 100, total);
+    }
+
+    @Test
+    void balancesAreRebuiltFromTheDatabase() throws Exception {
+        String accountId = newAccounts(1, 50).get(0);
+        bankAccountService.credit(accountId, 25, "salary");
+
+        // a fresh engine, as after a restart
+        PartitionedBalanceEngine restarted = new PartitionedBalanceEngine(bankAccountRepository, ledgerWriter, balanceMutationEngine, 2, 10);
+        try {
+            restarted.load();
+            assertThrows(BalanceNotSufficientException.class, () -> restarted.debit(accountId, 75.01, "too much"));
+            restarted.debit(accountId, 75, "all");
+            assertEquals(0, bankAccountRepository.findById(accountId).orElseThrow().getBalance());
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    private List<String> newAccounts(int count, double initialBalance) throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "engine", "engine@test"));
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add(bankAccountService.saveCurrentBankAccount(initialBalance, 0, customer.getId()).getId());
+        }
+        return accounts;
+    }
+
+    private void runConcurrently(int iterations, Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    task.run();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        void run() throws Exception;
+    }
+}
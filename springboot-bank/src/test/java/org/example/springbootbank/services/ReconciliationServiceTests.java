@@ -0,0 +1,53 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.ReconciliationMismatchDTO;
+import org.example.springbootbank.dtos.ReconciliationReportDTO;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// small partitions so the run crosses several keyset pages
+@SpringBootTest(properties = "bank.reconciliation.partition-size=3")
+class ReconciliationServiceTests {
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+
+    @Test
+    void reportsOnlyAccountsOutOfStepWithTheirLedger() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "reconciliation", "reconciliation@test"));
+        String clean = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        String transferred = bankAccountService.saveSavingBankAccount(50, 1.5, customer.getId()).getId();
+        String corrupted = bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+        bankAccountService.credit(clean, 25, "salary");
+        bankAccountService.transfer(clean, transferred, 40);
+        bankAccountService.debit(corrupted, 30, "rent");
+        // a write around the ledger: 70 on the books, 80 in the table (in centimes)
+        BankAccount bankAccount = bankAccountRepository.findById(corrupted).orElseThrow();
+        bankAccount.setBalance(8000);
+        bankAccountRepository.save(bankAccount);
+
+        ReconciliationReportDTO report = reconciliationService.reconcile();
+
+        List<ReconciliationMismatchDTO> mismatches = report.getMismatchDetails().stream()
+                .filter(mismatch -> List.of(clean, transferred, corrupted).contains(mismatch.getAccountId()))
+                .toList();
+        assertEquals(1, mismatches.size());
+        assertEquals(corrupted, mismatches.get(0).getAccountId());
+        assertEquals(70, mismatches.get(0).getLedgerBalance());
+        assertEquals(10, mismatches.get(0).getDifference());
+        assertTrue(report.getAccounts() >= 3);
+        assertEquals(report, reconciliationService.lastReport());
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.springbootbank.services;
+
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.dtos.StatementBucket;
+import org.example.springbootbank.dtos.StatementLineDTO;
+import org.example.springbootbank.entities.AccountOperation;
+import org.example.springbootbank.entities.BankAccount;
+import org.example.springbootbank.entities.OperationType;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.repository.BankAccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class StatementServiceTests {
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate LAST_MONTH = TODAY.minusMonths(1).withDayOfMonth(1);
+
+    @Autowired
+    private BankAccountServiceImpl bankAccountService;
+    @Autowired
+    private BankAccountRepository bankAccountRepository;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+
+    @Test
+    void aggregatesPerTypeAndBucket() throws Exception {
+        String accountId = newAccount();
+        BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        accountOperationRepository.save(new AccountOperation(null, noon(LAST_MONTH), 1050, OperationType.CREDIT, bankAccount, "old"));
+        accountOperationRepository.save(new AccountOperation(null, noon(LAST_MONTH.plusDays(1)), 2000, OperationType.CREDIT, bankAccount, "old"));
+        accountOperationRepository.save(new AccountOperation(null, noon(LAST_MONTH.plusDays(1)), 700, OperationType.DEBIT, bankAccount, "old"));
+
+        List<StatementLineDTO> months = bankAccountService.getStatement(accountId, LAST_MONTH, TODAY, StatementBucket.MONTH);
+        assertEquals(2, months.size());
+        StatementLineDTO credits = months.get(0);
+        assertEquals(LAST_MONTH, credits.getPeriod());
+        assertEquals(OperationType.CREDIT, credits.getType());
+        assertEquals(2, credits.getOperationCount());
+        assertEquals(30.5, credits.getTotal());
+        assertEquals(10.5, credits.getMinAmount());
+        assertEquals(20, credits.getMaxAmount());
+        assertEquals(OperationType.DEBIT, months.get(1).getType());
+        assertEquals(7, months.get(1).getTotal());
+
+        List<StatementLineDTO> days = bankAccountService.getStatement(accountId, LAST_MONTH, TODAY, StatementBucket.DAY);
+        assertEquals(List.of(LAST_MONTH, LAST_MONTH.plusDays(1), LAST_MONTH.plusDays(1)),
+                days.stream().map(StatementLineDTO::getPeriod).toList());
+    }
+
+    @Test
+    void closedPeriodsAreServedFromTheCache() throws Exception {
+        String accountId = newAccount();
+        BankAccount bankAccount = bankAccountRepository.findById(accountId).orElseThrow();
+        accountOperationRepository.save(new AccountOperation(null, noon(LAST_MONTH), 1000, OperationType.DEBIT, bankAccount, "old"));
+        assertEquals(1, bankAccountService.getStatement(accountId, LAST_MONTH, TODAY, StatementBucket.MONTH).size());
+
+        // written around the ledger: the closed month is not queried again, the current one is
+        accountOperationRepository.save(new AccountOperation(null, noon(LAST_MONTH), 1000, OperationType.DEBIT, bankAccount, "late"));
+        bankAccountService.credit(accountId, 5, "today");
+
+        List<StatementLineDTO> lines = bankAccountService.getStatement(accountId, LAST_MONTH, TODAY, StatementBucket.MONTH);
+        assertEquals(2, lines.size());
+        assertEquals(1, lines.get(0).getOperationCount());
+        assertEquals(TODAY.withDayOfMonth(1), lines.get(1).getPeriod());
+        assertEquals(5, lines.get(1).getTotal());
+    }
+
+    private String newAccount() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "statement", "statement@test"));
+        return bankAccountService.saveCurrentBankAccount(100, 0, customer.getId()).getId();
+    }
+
+    private static Date noon(LocalDate day) {
+        return Date.from(day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.springbootbank.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootbank.dtos.CustomerDTO;
+import org.example.springbootbank.repository.AccountOperationRepository;
+import org.example.springbootbank.services.BankAccountService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+class AccountHistoryExportTests {
+    @Autowired
+    private BankAccountRestController bankAccountRestController;
+    @Autowired
+    private BankAccountService bankAccountService;
+    @Autowired
+    private AccountOperationRepository accountOperationRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void csvExportHasOneDatedRowPerOperation() throws Exception {
+        String accountId = accountWithOperations();
+        int operations = accountOperationRepository.findByBankAccount_Id(accountId).size();
+
+        List<String> lines = export(accountId, "csv").lines().toList();
+
+        assertEquals("id,operationDate,amount,type,description", lines.get(0));
+        assertEquals(operations, lines.size() - 1);
+        for (String row : lines.subList(1, lines.size())) {
+            String operationDate = row.split(",", -1)[1];
+            assertFalse(operationDate.isEmpty(), row);
+            Instant.parse(operationDate);
+        }
+    }
+
+    @Test
+    void ndjsonExportHasOneDatedLinePerOperation() throws Exception {
+        String accountId = accountWithOperations();
+        int operations = accountOperationRepository.findByBankAccount_Id(accountId).size();
+
+        List<String> lines = export(accountId, "ndjson").lines().toList();
+
+        assertEquals(operations, lines.size());
+        for (String line : lines) {
+            JsonNode operation = objectMapper.readTree(line);
+            assertFalse(operation.path("operationDate").isNull() || operation.path("operationDate").isMissingNode(), line);
+        }
+    }
+
+    private String export(String accountId, String format) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = bankAccountRestController.exportAccountHistory(accountId, format);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String accountWithOperations() throws Exception {
+        CustomerDTO customer = bankAccountService.saveCustomer(new CustomerDTO(null, "export", "export@test"));
+        String accountId = bankAccountService.saveCurrentBankAccount(0, 0, customer.getId()).getId();
+        bankAccountService.credit(accountId, 100, "salary");
+        bankAccountService.debit(accountId, 30, "rent, march");
+        bankAccountService.credit(accountId, 5, "refund");
+        return accountId;
+    }
+}